@@ -0,0 +1,40 @@
+package pedigree.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pedigree.AgeModel;
+import pedigree.Sim;
+
+/** AgeModel : tirage d'une durée de vie et intégration de la période de fertilité. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AgeModelBenchmark {
+
+    private final AgeModel model = new AgeModel();
+    private final Random rnd = new Random(42L);
+
+    @Benchmark
+    public double randomAge() {
+        return model.randomAge(rnd);
+    }
+
+    @Benchmark
+    public double expectedParenthoodSpan() {
+        return model.expectedParenthoodSpan(Sim.MIN_MATING_AGE_F, Sim.MAX_MATING_AGE_F);
+    }
+}
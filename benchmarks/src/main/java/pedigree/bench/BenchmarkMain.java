@@ -0,0 +1,28 @@
+package pedigree.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Point d'entrée de {@code benchmarks.jar} : lance JMH en écrivant par défaut les
+ * résultats en JSON dans {@code jmh-result.json}, pour pouvoir les comparer d'une
+ * version à l'autre. Les options JMH usuelles restent disponibles ({@code -h}).
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> all = new ArrayList<>(Arrays.asList(args));
+        if (!all.contains("-rf")) {
+            all.add("-rf");
+            all.add("json");
+        }
+        if (!all.contains("-rff")) {
+            all.add("-rff");
+            all.add("jmh-result.json");
+        }
+        org.openjdk.jmh.Main.main(all.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,57 @@
+package pedigree.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pedigree.Coalescence;
+import pedigree.Simulator;
+
+/**
+ * Coalescence.paternal / maternal sur une pédigrée construite une fois par essai
+ * (simulation de {@code horizon} ans), seule la remontée est mesurée.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CoalescenceBenchmark {
+
+    @Param({"1000", "5000"})
+    int founders;
+
+    @Param({"2000"})
+    double horizon;
+
+    private Simulator sim;
+
+    @Setup
+    public void setup() {
+        sim = new Simulator(42L, horizon);
+        sim.addFounders(founders);                          // sexes et durées de vie tirés de la graine
+        sim.run();
+    }
+
+    @Benchmark
+    public List<Coalescence.Point> paternal() {
+        return Coalescence.paternal(sim, horizon);
+    }
+
+    @Benchmark
+    public List<Coalescence.Point> maternal() {
+        return Coalescence.maternal(sim, horizon);
+    }
+}
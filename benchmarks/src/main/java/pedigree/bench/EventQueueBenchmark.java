@@ -0,0 +1,99 @@
+package pedigree.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pedigree.OffHeapEventQueue;
+import pedigree.PriorityQueueO;
+import pedigree.Sim;
+import pedigree.Simulator;
+
+/**
+ * File d'événements du simulateur, modèle « hold » : retrait du prochain événement puis
+ * planification d'un événement ultérieur, à profondeur {@code size} constante.
+ * Compare {@link PriorityQueueO} (objets {@link Simulator.Event} sur le tas) à
+ * {@link OffHeapEventQueue} (enregistrements hors du tas, Sims par identifiant). Les
+ * événements visent {@code sims} Sims distincts. Avec {@code -prof gc}, JMH montre aussi
+ * l'allocation par opération.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventQueueBenchmark {
+
+    /** Interface commune aux deux files comparées. */
+    private interface Queue {
+        void add(Simulator.Event e);
+        Simulator.Event poll();
+    }
+
+    @Param({"heap", "offheap"})
+    String impl;
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"10000"})
+    int sims;
+
+    private Simulator owner;
+    private Sim[] pool;
+    private Queue queue;
+    private Random rnd;
+
+    @Setup
+    public void setup() {
+        owner = new Simulator(1L, -1.0);                  // horizon négatif : aucun Sample planifié
+        rnd = new Random(42L);
+        pool = new Sim[sims];
+        for (int i = 0; i < sims; i++) pool[i] = new Sim(Sim.Sex.M);
+        switch (impl) {
+            case "heap" -> {
+                PriorityQueueO<Simulator.Event> q = new PriorityQueueO<>((a, b) -> {
+                    int c = Double.compare(a.getTime(), b.getTime());
+                    return c != 0 ? c : a.getEvent().compareTo(b.getEvent());
+                });
+                queue = new Queue() {
+                    public void add(Simulator.Event e) { q.add(e); }
+                    public Simulator.Event poll()      { return q.poll(); }
+                };
+            }
+            case "offheap" -> {
+                OffHeapEventQueue q = new OffHeapEventQueue(owner);
+                queue = new Queue() {
+                    public void add(Simulator.Event e) { q.add(e); }
+                    public Simulator.Event poll()      { return q.poll(); }
+                };
+            }
+            default -> throw new IllegalArgumentException("unknown queue: " + impl);
+        }
+        for (int i = 0; i < size; i++) queue.add(next(0.0));
+    }
+
+    private Simulator.Event next(double now) {
+        return owner.new Event(Simulator.Events.Death, pool[rnd.nextInt(pool.length)], now + 100.0 * rnd.nextDouble());
+    }
+
+    /** Retrait du prochain événement, puis planification d'un événement ultérieur. */
+    @Benchmark
+    public Simulator.Event hold() {
+        Simulator.Event e = queue.poll();
+        queue.add(next(e.getTime()));
+        return e;
+    }
+}
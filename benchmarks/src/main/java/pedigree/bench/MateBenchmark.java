@@ -0,0 +1,57 @@
+package pedigree.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pedigree.Sim;
+import pedigree.Simulator;
+
+/**
+ * Simulator.Mate sur une population établie : coût d'un choix de partenaire en
+ * fonction de la taille du bassin d'hommes disponibles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MateBenchmark {
+
+    @Param({"1000", "10000"})
+    int founders;
+
+    private Simulator sim;
+    private Sim[] mothers;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        sim = new Simulator(42L, Double.MAX_VALUE);
+        sim.addFounders(founders);                          // sexes et durées de vie tirés de la graine
+        sim.run(200.0);
+        List<Sim> f = new ArrayList<>();
+        for (Sim s : sim.getLivingPopulation()) {
+            if (s.getSex() == Sim.Sex.F) f.add(s);
+        }
+        mothers = f.toArray(new Sim[0]);
+    }
+
+    @Benchmark
+    public Sim mate() {
+        return sim.Mate(mothers[cursor++ % mothers.length]);
+    }
+}
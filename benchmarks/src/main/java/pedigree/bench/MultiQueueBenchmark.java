@@ -0,0 +1,89 @@
+package pedigree.bench;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pedigree.MultiQueue;
+import pedigree.PriorityQueueO;
+
+/**
+ * Files de priorité partagées entre threads, modèle « hold » d'un simulateur à
+ * événements discrets : chaque opération retire un élément et en réinsère un plus
+ * tardif, la taille reste {@code size}. Compare {@link MultiQueue} à un
+ * {@link PriorityQueueO} sous un verrou unique et à {@link PriorityBlockingQueue}.
+ * Le nombre de threads se choisit avec l'option JMH {@code -t}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiQueueBenchmark {
+
+    /** Interface commune aux trois files comparées. */
+    private interface Queue {
+        void add(Double e);
+        Double poll();
+    }
+
+    @Param({"multi", "synchronized", "blocking"})
+    String impl;
+
+    @Param({"100000"})
+    int size;
+
+    private Queue queue;
+
+    @Setup
+    public void setup() {
+        switch (impl) {
+            case "multi" -> {
+                MultiQueue<Double> q = new MultiQueue<>();
+                queue = new Queue() {
+                    public void add(Double e) { q.add(e); }
+                    public Double poll()      { return q.poll(); }
+                };
+            }
+            case "synchronized" -> {
+                PriorityQueueO<Double> q = new PriorityQueueO<>();
+                queue = new Queue() {
+                    public synchronized void add(Double e) { q.add(e); }
+                    public synchronized Double poll()      { return q.poll(); }
+                };
+            }
+            case "blocking" -> {
+                PriorityBlockingQueue<Double> q = new PriorityBlockingQueue<>();
+                queue = new Queue() {
+                    public void add(Double e) { q.add(e); }
+                    public Double poll()      { return q.poll(); }
+                };
+            }
+            default -> throw new IllegalArgumentException("unknown queue: " + impl);
+        }
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int i = 0; i < size; i++) queue.add(rnd.nextDouble());
+    }
+
+    /** Retrait du prochain événement, puis planification d'un événement ultérieur. */
+    @Benchmark
+    public Double hold() {
+        Double e = queue.poll();
+        double t = e == null ? 0.0 : e;
+        queue.add(t + ThreadLocalRandom.current().nextDouble());
+        return e;
+    }
+}
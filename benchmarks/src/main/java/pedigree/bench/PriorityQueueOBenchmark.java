@@ -0,0 +1,75 @@
+package pedigree.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pedigree.PriorityQueueO;
+
+/**
+ * PriorityQueueO : add/poll en régime permanent (taille constante), remove d'un
+ * élément quelconque et construction par addAll.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PriorityQueueOBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private Double[] values;
+    private List<Double> list;
+    private PriorityQueueO<Double> heap;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42L);
+        values = new Double[size];
+        for (int i = 0; i < size; i++) values[i] = rnd.nextDouble();
+        list = new ArrayList<>(List.of(values));
+        heap = new PriorityQueueO<>();
+        heap.addAll(list);
+    }
+
+    /** Un ajout suivi d'un retrait du minimum : la taille reste {@code size}. */
+    @Benchmark
+    public Double addPoll() {
+        heap.add(values[cursor++ % size] + 1.0);
+        return heap.poll();
+    }
+
+    /** Retrait d'un élément quelconque puis réinsertion. */
+    @Benchmark
+    public boolean removeAdd() {
+        Double v = heap.peek();
+        boolean removed = heap.remove(v);
+        heap.add(v);
+        return removed;
+    }
+
+    /** Construction d'un tas de {@code size} éléments (heapify). */
+    @Benchmark
+    public PriorityQueueO<Double> addAll() {
+        PriorityQueueO<Double> q = new PriorityQueueO<>();
+        q.addAll(list);
+        return q;
+    }
+}
@@ -0,0 +1,36 @@
+package pedigree.bench;
+
+import java.util.Locale;
+
+import pedigree.Simulator;
+
+/**
+ * Opérations de file par naissance, planification classique des reproductions vs.
+ * paresseuse ({@code ReproductionSchedule}). Mesure déterministe, hors JMH :
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar pedigree.bench.ReproductionScheduleMeasure 2000 1000 42
+ * </pre>
+ */
+public final class ReproductionScheduleMeasure {
+
+    private ReproductionScheduleMeasure() {}
+
+    /**
+     * @param args founders horizon seed
+     */
+    public static void main(String[] args) {
+        int founders = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        double horizon = args.length > 1 ? Double.parseDouble(args[1]) : 1000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        System.out.println("mode,births,queue_ops,ops_per_birth");
+        for (boolean lazy : new boolean[] {false, true}) {
+            Simulator sim = new Simulator(seed, horizon, lazy);
+            sim.addFounders(founders);
+            sim.run(horizon);
+            System.out.printf(Locale.US, "%s,%d,%d,%.3f%n", lazy ? "lazy" : "eager",
+                    sim.getBirths(), sim.getQueueOperations(),
+                    sim.getQueueOperations() / (double) Math.max(1, sim.getBirths()));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package pedigree.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pedigree.Simulator;
+
+/**
+ * Événements traités par seconde selon le nombre de fondateurs. Chaque itération
+ * repart d'une population déjà établie (100 ans simulés) pour mesurer le régime
+ * permanent plutôt que la mise en place des fondateurs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulatorBenchmark {
+
+    private static final int BATCH = 10_000;
+    private static final double WARM_YEARS = 100.0;
+
+    @Param({"1000", "10000", "100000"})
+    int founders;
+
+    private Simulator sim;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        sim = new Simulator(42L, Double.MAX_VALUE);
+        sim.addFounders(founders);                          // sexes et durées de vie tirés de la graine
+        sim.run(WARM_YEARS);
+    }
+
+    /** Débit en événements par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double events() {
+        for (int i = 0; i < BATCH && sim.hasEvents(); i++) {
+            Simulator.Event e = sim.getEvent();
+            sim.setTime(e.getTime());
+            sim.dispatch(e);
+        }
+        return sim.getTime();
+    }
+}
@@ -0,0 +1,56 @@
+package pedigree.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pedigree.Simulator;
+import pedigree.WindowedSimulator;
+
+/**
+ * Simulation complète par fenêtres ({@link WindowedSimulator}) selon le nombre de threads.
+ * La trajectoire ne dépend que de la graine : toutes les valeurs de {@code threads}
+ * simulent exactement les mêmes naissances, seul le temps change.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class WindowedSimulatorBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    @Param({"20000"})
+    int founders;
+
+    @Param({"300"})
+    double horizon;
+
+    private Simulator sim;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        sim = new Simulator(42L, horizon);
+        sim.addFounders(founders);
+    }
+
+    @Benchmark
+    public long run() throws InterruptedException {
+        new WindowedSimulator(sim, threads, 42L).run(horizon);
+        return sim.getBirths();
+    }
+}
@@ -152,6 +152,23 @@ public class AgeModel {
         return Math.min(age_death, accidental_death);
     }
     
+    /**
+     * A random lifespan conditioned on surviving past the given age.
+     * Both hazards are inverted exactly: the accident part is memoryless,
+     * the Gompertz part restarts from the current age.
+     * 
+     * @param RND Psudorandom number generator for uniform[0,1]
+     * @param age current age (already survived)
+     * @return a random lifespan, larger than age
+     */
+    public double randomAge(Random RND, double age){
+        double accidental_death = age-Math.log(RND.nextDouble())/accident_rate;
+        double u = RND.nextDouble();
+        double age_death = death_rate*Math.log1p(Math.expm1(age/death_rate)-Math.log(u)/death_rate*age_factor);
+        
+        return Math.min(age_death, accidental_death);
+    }
+    
     /**
      * Test for tabulating random lifespans from command line.
      * 
@@ -0,0 +1,143 @@
+package pedigree;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import pedigree.Sim.Sex;
+
+/**
+ * BackwardCoalescence : pédigrée clairsemée, simulée à rebours depuis un échantillon.
+ * <p>Au lieu de simuler toute la population vers l'avant puis d'en jeter presque tout,
+ * on ne génère que les ancêtres (paternels ou maternels) d'un échantillon d'individus
+ * vivants à l'instant présent. Le modèle démographique est celui, stationnaire, que vise
+ * le {@link Simulator} : population de taille constante {@code N}, donc
+ * {@code B = N / E[durée de vie]} naissances par an, moitié de chaque sexe, et
+ * mortalité {@link AgeModel}.</p>
+ * <p>Un individu est identifié par (sexe, année de naissance y, rang i dans la cohorte).
+ * Les rangs sont ordonnés par longévité : sur les {@code B/2} naissances de l'année, le
+ * rang i est vivant à l'âge a si {@code i < (B/2)·S(a)}. Le parent d'un enfant né à t
+ * a un âge a de densité ∝ S(a) sur l'intervalle de reproduction (chaque parent vivant
+ * et en âge est également probable, comme dans {@code Mate}), puis un rang uniforme
+ * parmi les vivants de sa cohorte. Deux lignées fusionnent quand elles tirent le même
+ * parent. Le coût est proportionnel au nombre d'ancêtres visités, pas à la population.</p>
+ * <p>Approximation : la fidélité des couples n'est pas modélisée (chaque naissance tire
+ * son père indépendamment), ce qui retarde un peu la coalescence paternelle.</p>
+ */
+public final class BackwardCoalescence {
+
+    private static final double MAX_AGE = 150.0;   // S(150) est négligeable
+
+    private final AgeModel model;
+    private final double cohortSize;               // naissances par an et par sexe
+
+    /** Lignée en attente : identifiant et date de naissance de son porteur. */
+    private record Lineage(long key, double birth) {}
+
+    /**
+     * @param population taille (constante) de la population vivante
+     */
+    public BackwardCoalescence(int population) {
+        if (population < 1) throw new IllegalArgumentException("population must be positive");
+        model = new AgeModel();
+        double lifeExpectancy = model.expectedParenthoodSpan(0.0, MAX_AGE);
+        cohortSize = population / lifeExpectancy / 2.0;
+    }
+
+    /** Lignées paternelles d'un échantillon de {@code sample} vivants à {@code present}. */
+    public List<Coalescence.Point> paternal(int sample, double present, long seed) {
+        return compute(sample, present, Sex.M, Sim.MIN_MATING_AGE_M, Sim.MAX_MATING_AGE_M, new Random(seed));
+    }
+
+    /** Lignées maternelles d'un échantillon de {@code sample} vivants à {@code present}. */
+    public List<Coalescence.Point> maternal(int sample, double present, long seed) {
+        return compute(sample, present, Sex.F, Sim.MIN_MATING_AGE_F, Sim.MAX_MATING_AGE_F, new Random(seed));
+    }
+
+    /* ====================== Cœur ====================== */
+
+    private List<Coalescence.Point> compute(int sample, double present, Sex parentSex,
+                                            double minAge, double maxAge, Random rnd) {
+        // même parcours que Coalescence.compute : plus jeune d'abord
+        PriorityQueueO<Lineage> pq = new PriorityQueueO<>((a, b) -> Double.compare(b.birth(), a.birth()));
+        HashSet<Long> active = new HashSet<>();
+        drawSample(sample, present, rnd, pq, active);
+
+        List<Coalescence.Point> traj = new ArrayList<>();
+        int n = active.size();
+        traj.add(new Coalescence.Point(present, n));
+
+        while (n > 1 && !pq.isEmpty()) {
+            Lineage child = pq.poll();
+            active.remove(child.key());                 // aucun ancêtre plus ancien ne peut être lui
+            double age = randomAge(rnd, minAge, maxAge);
+            double birth = child.birth() - age;
+            if (birth < 0.0) {                          // avant les fondateurs
+                active.add(child.key());
+                continue;
+            }
+            long key = key(parentSex, birth, age, rnd);
+            if (!active.add(key)) {                     // déjà une lignée → fusion
+                n--;
+                traj.add(new Coalescence.Point(child.birth(), n));
+            } else {
+                pq.add(new Lineage(key, birth));
+            }
+        }
+        return traj;
+    }
+
+    /** {@code sample} vivants distincts, d'âge ∝ S(a), sexe à pile ou face. */
+    private void drawSample(int sample, double present, Random rnd,
+                            PriorityQueueO<Lineage> pq, HashSet<Long> active) {
+        double alive = 2.0 * cohortSize * model.expectedParenthoodSpan(0.0, Math.min(MAX_AGE, present));
+        if (sample > Math.round(alive)) throw new IllegalArgumentException("sample larger than the population");
+        List<Lineage> drawn = new ArrayList<>(sample);
+        while (drawn.size() < sample) {
+            double age = randomAge(rnd, 0.0, Math.min(MAX_AGE, present));
+            Sex sex = rnd.nextBoolean() ? Sex.M : Sex.F;
+            double birth = present - age;
+            long key = key(sex, birth, age, rnd);
+            if (active.add(key)) drawn.add(new Lineage(key, birth));
+        }
+        pq.addAll(drawn);
+    }
+
+    /** Âge de densité ∝ S(a) sur [lo, hi], par rejet (S est décroissante). */
+    private double randomAge(Random rnd, double lo, double hi) {
+        double top = model.getSurvival(lo);
+        while (true) {
+            double a = lo + (hi - lo) * rnd.nextDouble();
+            if (rnd.nextDouble() * top <= model.getSurvival(a)) return a;
+        }
+    }
+
+    /** Individu de la cohorte de {@code birth}, tiré parmi ceux encore vivants à {@code age}. */
+    private long key(Sex sex, double birth, double age, Random rnd) {
+        long year = (long) Math.floor(birth);
+        int living = (int) Math.max(1L, (long) Math.ceil(cohortSize * model.getSurvival(age)));
+        long rank = rnd.nextInt(living);
+        return (year << 32 | rank) << 1 | sex.ordinal();
+    }
+
+    /* =================== Exécutable CLI =================== */
+
+    /**
+     * Même sortie que {@link Coalescence#main} (population constante).
+     *
+     * @param args population sample horizon seed
+     */
+    public static void main(String[] args) {
+        int population = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int sample = args.length > 1 ? Integer.parseInt(args[1]) : population;
+        double horizon = args.length > 2 ? Double.parseDouble(args[2]) : 20000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+
+        BackwardCoalescence model = new BackwardCoalescence(population);
+        List<Simulator.PointPop> pop = new ArrayList<>();
+        for (double t = 0.0; t <= horizon; t += 100.0) pop.add(new Simulator.PointPop(t, population));
+        Coalescence.printResults(System.out, pop,
+                model.paternal(sample, horizon, seed), model.maternal(sample, horizon, seed + 1));
+    }
+}
@@ -0,0 +1,113 @@
+package pedigree;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Batch : exécute plusieurs simulations dans une seule JVM (déjà chaude).
+ * <p>Le fichier de tâches contient une tâche par ligne, {@code founders horizon seed [name]}
+ * ; les lignes vides et celles qui commencent par {@code #} sont ignorées. Chaque tâche
+ * écrit {@code <name>.csv} (par défaut {@code sim_<i>.csv}) dans le répertoire de sortie,
+ * au format de {@link Coalescence#main}. Deux tâches ne peuvent pas porter le même nom
+ * (elles écriraient le même fichier). Les tâches sont indépendantes et tournent en
+ * parallèle ; l'échec de l'une n'interrompt pas les autres.</p>
+ */
+public final class Batch {
+
+    /** Une ligne du fichier de tâches. */
+    public record Job(int founders, double horizon, long seed, String name) {}
+
+    private Batch() {}
+
+    /** Lit un fichier de tâches. */
+    public static List<Job> parse(Path file) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        int lineNo = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNo++;
+            String l = line.strip();
+            if (l.isEmpty() || l.startsWith("#")) continue;
+            String[] f = l.split("\\s+");
+            if (f.length < 3 || f.length > 4)
+                throw new IllegalArgumentException(file + ":" + lineNo + ": expected 'founders horizon seed [name]'");
+            String name = f.length == 4 ? f[3] : "sim_" + jobs.size();
+            if (!names.add(name))
+                throw new IllegalArgumentException(file + ":" + lineNo + ": duplicate job name '" + name + "'");
+            try {
+                jobs.add(new Job(Integer.parseInt(f[0]), Double.parseDouble(f[1]), Long.parseLong(f[2]), name));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException(file + ":" + lineNo + ": " + ex.getMessage(), ex);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Exécute {@code jobs} sur {@code threads} threads et écrit un CSV par tâche.
+     * Des noms en double sont refusés avant toute exécution.
+     *
+     * @return nombre de tâches en échec (détail sur stderr)
+     */
+    public static int run(List<Job> jobs, Path outDir, int threads) throws IOException, InterruptedException {
+        Set<String> names = new HashSet<>();
+        for (Job job : jobs) {
+            if (!names.add(job.name())) throw new IllegalArgumentException("duplicate job name '" + job.name() + "'");
+        }
+        Files.createDirectories(outDir);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, jobs.size())));
+        try {
+            List<Future<?>> tasks = new ArrayList<>(jobs.size());
+            for (Job job : jobs) {
+                tasks.add(pool.submit(() -> {
+                    Path out = outDir.resolve(job.name() + ".csv");
+                    try (PrintStream ps = new PrintStream(Files.newOutputStream(out), false, StandardCharsets.UTF_8)) {
+                        Coalescence.simulate(job.founders(), job.horizon(), job.seed(), ps);
+                    }
+                    return null;
+                }));
+            }
+            int failed = 0;
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    tasks.get(i).get();
+                } catch (ExecutionException ex) {
+                    failed++;
+                    System.err.println("job " + jobs.get(i).name() + " failed: " + ex.getCause());
+                }
+            }
+            return failed;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /* =================== Exécutable CLI =================== */
+
+    /**
+     * @param args jobFile [outDir] [threads]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) throw new IllegalArgumentException("usage: jobFile [outDir] [threads]");
+        Path jobFile = Path.of(args[0]);
+        Path outDir = Path.of(args.length > 1 ? args[1] : "simulations");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<Job> jobs = parse(jobFile);
+        long start = System.nanoTime();
+        int failed = run(jobs, outDir, threads);
+        System.err.printf("%d jobs, %d failed, %.1f s%n", jobs.size(), failed, (System.nanoTime() - start) / 1e9);
+        if (failed > 0) throw new IllegalStateException(failed + " of " + jobs.size() + " jobs failed");
+    }
+}
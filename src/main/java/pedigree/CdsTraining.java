@@ -0,0 +1,43 @@
+package pedigree;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * CdsTraining : exécution d'entraînement de l'archive AppCDS ({@code target/pedigree.jsa}).
+ * <p>Une archive dynamique ne retient que les classes chargées par une seule JVM. Celle-ci
+ * parcourt donc les deux chemins de {@code java -jar} : la première tâche du fichier comme
+ * une simulation seule ({@link Coalescence#main}, métriques JMX comprises, sortie dans
+ * {@code outDir/single.csv}), puis tout le fichier en lot ({@code --batch}).</p>
+ */
+public final class CdsTraining {
+
+    private CdsTraining() {}
+
+    /**
+     * @param args jobFile outDir
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) throw new IllegalArgumentException("usage: jobFile outDir");
+        Path jobFile = Path.of(args[0]);
+        Path outDir = Files.createDirectories(Path.of(args[1]));
+        List<Batch.Job> jobs = Batch.parse(jobFile);
+        if (jobs.isEmpty()) throw new IllegalArgumentException(jobFile + ": no job");
+
+        Batch.Job first = jobs.get(0);
+        PrintStream stdout = System.out;
+        try (PrintStream single = new PrintStream(Files.newOutputStream(outDir.resolve("single.csv")),
+                false, StandardCharsets.UTF_8)) {
+            System.setOut(single);
+            Coalescence.main(new String[] {
+                    String.valueOf(first.founders()), String.valueOf(first.horizon()), String.valueOf(first.seed())});
+        } finally {
+            System.setOut(stdout);
+        }
+
+        Coalescence.main(new String[] {"--batch", jobFile.toString(), outDir.toString()});
+    }
+}
@@ -1,118 +1,332 @@
 package pedigree;
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Random;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
  * Coalescence : retrace, en remontant le temps, le nombre de lignées paternelles
  * (chromosome Y) et maternelles (ADN mt) représentées dans la population
  * vivante à un instant donné.
- * <p>Algorithme § 2.3 : tas « plus jeune d’abord » + Set pour tester la fusion.</p>
+ * <p>Algorithme § 2.3 : tas « plus jeune d’abord » + Set pour tester la fusion.</p>
+ * <p>Les variantes {@code *Stream} produisent les points au fur et à mesure, sans
+ * liste intermédiaire ; {@link Downsampling} les réduit à la volée et
+ * {@link #merge} aligne les deux courbes sur le temps.</p>
  */
 public final class Coalescence {
 
     /** Point (t, n) : temps (de {@code horizon} vers 0) et nombre de lignées. */
     public record Point(double time, int lineages) {}
 
+    /** Ligne (t, lignées paternelles, lignées maternelles) des deux courbes fusionnées. */
+    public record Row(double time, int paternal, int maternal) {}
+
+    /** Sortie complète d'une simulation : population tous les 100 ans et les deux courbes. */
+    public record Result(List<Simulator.PointPop> popSamples, List<Point> paternal, List<Point> maternal) {}
+
     /* ===================== Public façade ===================== */
 
     /** Lignées paternelles. */
     public static List<Point> paternal(Simulator sim, double tMax) {
-        return compute(sim.getLivingPopulation(), Sim::getFather, tMax);
+        return compute(sim.getLivingPopulation(), Sim::getFather, "paternal", tMax);
     }
 
     /** Lignées maternelles. */
     public static List<Point> maternal(Simulator sim, double tMax) {
-        return compute(sim.getLivingPopulation(), Sim::getMother, tMax);
+        return compute(sim.getLivingPopulation(), Sim::getMother, "maternal", tMax);
+    }
+
+    /** Lignées paternelles d'une population quelconque (ex. dèmes fusionnés). */
+    public static List<Point> paternal(Collection<Sim> pop, double tMax) {
+        return compute(pop, Sim::getFather, "paternal", tMax);
+    }
+
+    /** Lignées maternelles d'une population quelconque (ex. dèmes fusionnés). */
+    public static List<Point> maternal(Collection<Sim> pop, double tMax) {
+        return compute(pop, Sim::getMother, "maternal", tMax);
+    }
+
+    /** Lignées paternelles, point par point (temps décroissant), calculées à la demande. */
+    public static Iterator<Point> paternalStream(Collection<Sim> pop, double tMax) {
+        return new Trace(pop, Sim::getFather, "paternal", tMax);
+    }
+
+    /** Lignées maternelles, point par point (temps décroissant), calculées à la demande. */
+    public static Iterator<Point> maternalStream(Collection<Sim> pop, double tMax) {
+        return new Trace(pop, Sim::getMother, "maternal", tMax);
+    }
+
+    /**
+     * Fusionne deux courbes (temps décroissant) sur le temps : une ligne par date où
+     * l'une au moins change, chaque courbe gardant sa dernière valeur entre ses points.
+     * Les deux courbes doivent commencer au même instant présent.
+     */
+    public static Iterator<Row> merge(Iterator<Point> paternal, Iterator<Point> maternal) {
+        return new Iterator<>() {
+            private Point p = paternal.hasNext() ? paternal.next() : null;
+            private Point m = maternal.hasNext() ? maternal.next() : null;
+            private int pat = p == null ? 0 : p.lineages();
+            private int mat = m == null ? 0 : m.lineages();
+
+            @Override
+            public boolean hasNext() {
+                return p != null || m != null;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                double t = Math.max(p == null ? Double.NEGATIVE_INFINITY : p.time(),
+                                    m == null ? Double.NEGATIVE_INFINITY : m.time());
+                while (p != null && p.time() == t) {
+                    pat = p.lineages();
+                    p = paternal.hasNext() ? paternal.next() : null;
+                }
+                while (m != null && m.time() == t) {
+                    mat = m.lineages();
+                    m = maternal.hasNext() ? maternal.next() : null;
+                }
+                return new Row(t, pat, mat);
+            }
+        };
     }
 
     /* ====================== Cœur générique ====================== */
 
     private static List<Point> compute(Collection<Sim> pop,
                                        Function<Sim, Sim> parentSel,
+                                       String lineage,
                                        double horizon) {
-        // Tas trié « plus jeune d’abord » (birthTime décroissant)
-        PriorityQueueO<Sim> pq = new PriorityQueueO<>((a, b) -> Double.compare(b.getBirthTime(), a.getBirthTime()));
-        pq.addAll(pop);
-
-        HashSet<Sim> active = new HashSet<>(pop);
         List<Point> traj = new ArrayList<>();
-        int n = active.size();
-        // horizon = temps présent
-        traj.add(new Point(horizon, n));
-
-        while (n > 1 && !pq.isEmpty()) {
-            Sim child = pq.poll();
-            Sim parent = parentSel.apply(child);
-            if (parent == null) continue;                   // fondateur
-
-            if (!active.add(parent)) {                      // déjà présent → fusion
-                n--;
-                traj.add(new Point(child.getBirthTime(), n));
-            } else {
-                pq.add(parent);                            // nouvelle lignée à explorer
+        new Trace(pop, parentSel, lineage, horizon).forEachRemaining(traj::add);
+        return traj;
+    }
+
+    /**
+     * Parcours « plus jeune d'abord », suspendu entre deux fusions : chaque appel à
+     * {@code next} reprend la boucle jusqu'à la fusion suivante. Tas et index sont
+     * construits au premier appel et libérés à la fin du parcours.
+     */
+    private static final class Trace implements Iterator<Point> {
+        private final Collection<Sim> pop;
+        private final Function<Sim, Sim> parentSel;
+        private final String lineage;
+        private final double horizon;
+        private PriorityQueueO<Sim> pq;
+        private HashSet<Sim> active;
+        private FlightEvents.CoalescencePhase jfr;
+        private int n;
+        private boolean done;
+        private Point pending;
+
+        Trace(Collection<Sim> pop, Function<Sim, Sim> parentSel, String lineage, double horizon) {
+            this.pop = pop;
+            this.parentSel = parentSel;
+            this.lineage = lineage;
+            this.horizon = horizon;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending == null && !done) pending = advance();
+            return pending != null;
+        }
+
+        @Override
+        public Point next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Point p = pending;
+            pending = null;
+            return p;
+        }
+
+        private Point advance() {
+            if (pq == null) {
+                // Tas trié « plus jeune d’abord » (birthTime décroissant)
+                jfr = phase(lineage, "heapify", pop.size());
+                pq = new PriorityQueueO<>((a, b) -> Double.compare(b.getBirthTime(), a.getBirthTime()));
+                pq.addAll(pop);
+                commit(jfr, pop.size());
+
+                jfr = phase(lineage, "index", pop.size());
+                active = new HashSet<>(pop);
+                n = active.size();
+                commit(jfr, n);
+
+                jfr = phase(lineage, "trace", pop.size());
+                // horizon = temps présent
+                return new Point(horizon, n);
             }
+            while (n > 1 && !pq.isEmpty()) {
+                Sim child = pq.poll();
+                Sim parent = parentSel.apply(child);
+                if (parent == null) continue;                   // fondateur
 
+                if (!active.add(parent)) {                      // déjà présent → fusion
+                    n--;
+                    return new Point(child.getBirthTime(), n);
+                } else {
+                    pq.add(parent);                            // nouvelle lignée à explorer
+                }
+            }
+            commit(jfr, n);
+            done = true;
+            pq = null;
+            active = null;
+            return null;
         }
-        return traj;
+    }
+
+    private static FlightEvents.CoalescencePhase phase(String lineage, String phase, int population) {
+        FlightEvents.CoalescencePhase jfr = new FlightEvents.CoalescencePhase();
+        jfr.lineage = lineage;
+        jfr.phase = phase;
+        jfr.population = population;
+        jfr.begin();
+        return jfr;
+    }
+
+    private static void commit(FlightEvents.CoalescencePhase jfr, int lineages) {
+        jfr.lineages = lineages;
+        jfr.commit();
     }
 
     /* =================== Exécutable CLI =================== */
 
-    public static void main(String[] args) {
+    /**
+     * Avec {@code -Dpedigree.cache=<répertoire>}, les résultats sont servis par le
+     * {@link ResultCache} s'ils y sont déjà, et une exécution plus longue repart de
+     * l'état en cache le plus avancé pour les mêmes fondateurs et graine.
+     *
+     * @param args founders horizon seed, ou {@code --batch jobFile [outDir] [threads]}
+     *             (voir {@link Batch})
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            Batch.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         int founders = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
         double horizon = args.length > 1 ? Double.parseDouble(args[1]) : 20000;
         long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
 
-        Simulator sim = new Simulator(seed, horizon);
-        Random rnd = new Random(seed);
+        simulate(founders, horizon, seed, System.out, ResultCache.fromSystemProperties(), sim -> {
+            // métriques JMX ; -Dpedigree.metrics.log=<secondes> pour une ligne périodique sur stderr
+            SimulatorMetrics metrics = SimulatorMetrics.attach(sim, 1.0);
+            // l'initialisation du serveur JMX (~0,4 s) ne retarde pas le démarrage de la simulation
+            Thread jmx = new Thread(() -> metrics.register("coalescence"), "metrics-jmx");
+            jmx.setDaemon(true);
+            jmx.start();
+            String logEvery = System.getProperty("pedigree.metrics.log");
+            if (logEvery != null) metrics.logEvery(System.err, Long.parseLong(logEvery) * 1000L);
+        });
+    }
 
-        /* ----------- Création des fondateurs & planification Birth ----------- */
-        for (int i = 0; i < founders; i++) {
-            Sim founder = new Sim(Sim.Sex.getSex());
-            sim.scheduleBirthEvent(founder);
+    /** Une simulation complète (fondateurs, exécution, coalescence) imprimée sur {@code out}. */
+    static void simulate(int founders, double horizon, long seed, PrintStream out) throws IOException {
+        simulate(founders, horizon, seed, out, ResultCache.fromSystemProperties(), sim -> {});
+    }
+
+    /**
+     * Comme {@link #simulate(int, double, long, PrintStream)}, à travers {@code cache}
+     * s'il n'est pas {@code null} ; {@code instrument} ne voit que les simulations
+     * réellement exécutées.
+     */
+    static void simulate(int founders, double horizon, long seed, PrintStream out,
+                         ResultCache cache, Consumer<Simulator> instrument) throws IOException {
+        if (cache == null) {
+            Simulator sim = newSimulation(founders, horizon, seed);
+            instrument.accept(sim);
+            run(sim, horizon);
+            Collection<Sim> living = sim.getLivingPopulation();
+            printResults(out, sim.getPopSamples(), paternalStream(living, horizon), maternalStream(living, horizon));
+            return;
+        }
+        String resultKey = ResultCache.resultKey(founders, horizon, seed);
+        Result result = cache.get(resultKey);
+        if (result == null) {
+            String stateKey = ResultCache.stateKey(founders, seed);
+            Simulator sim = cache.getState(stateKey, horizon);
+            if (sim == null) sim = newSimulation(founders, horizon, seed);
+            instrument.accept(sim);
+            result = finish(sim, horizon);
+            cache.putState(stateKey, sim);
+            cache.put(resultKey, result);
         }
+        print(out, result);
+    }
 
+    private static Simulator newSimulation(int founders, double horizon, long seed) {
+        Simulator sim = new Simulator(seed, horizon);
+
+        /* ----------- Création des fondateurs (en bloc, reproductible) ----------- */
+        sim.addFounders(founders);
+        return sim;
+    }
+
+    private static void run(Simulator sim, double horizon) {
         /* ------------------- Boucle d’exécution des événements ------------------- */
-        while (sim.hasEvents()) {
-            Simulator.Event e = sim.getEvent();
-            if (e.getTime() > horizon) break;              // stop at horizon
-            sim.setTime(e.getTime());
-            switch (e.getEvent()) {
-                case Birth          -> sim.Birth(e.getSim());
-                case Death          -> sim.Death(e.getSim());
-                case Reproduction   -> sim.Reproduction(e.getSim());
-                case EntersMatingAge-> sim.EntersMatingAge(e.getSim());
-                case ExitsMatingAge -> sim.ExitsMatingAge(e.getSim());
-            }
-        }
+        sim.run();
         // force un dernier échantillon à horizon
         sim.setTime(horizon);
         sim.recordSample();
+    }
+
+    private static Result finish(Simulator sim, double horizon) {
+        run(sim, horizon);
+        return new Result(sim.getPopSamples(), paternal(sim, horizon), maternal(sim, horizon));
+    }
+
+    /* ------------------- Impression des résultats ------------------- */
+    private static void print(PrintStream out, Result r) {
+        printResults(out, r.popSamples(), r.paternal(), r.maternal());
+    }
+
+    /**
+     * Imprime les deux tableaux CSV (population puis coalescence) attendus par
+     * {@code pythongraph.py}.
+     */
+    static void printResults(PrintStream out, List<Simulator.PointPop> popSamples,
+                             List<Point> pat, List<Point> mat) {
+        printResults(out, popSamples, pat.iterator(), mat.iterator());
+    }
 
-        /* ------------------- Impression des résultats ------------------- */
-        // (1) Population vivante tous les 100 ans
-        System.out.println("time,population");
-        for (Simulator.PointPop p : sim.getPopSamples()) {
-            System.out.printf(Locale.US, "%.1f,%d%n", p.time(), p.pop());
+    /**
+     * Comme ci-dessus, à partir des flux. Les deux courbes sont fusionnées sur le temps et
+     * chaque ligne est imprimée dès qu'elle est connue, du présent vers le passé : aucune
+     * ligne n'est gardée en mémoire. L'ancienne sortie allait du plus ancien au présent ;
+     * trier sur {@code time} pour la retrouver. Avec {@code -Dpedigree.downsample=lttb|bins}, chacune
+     * est d'abord réduite à la volée à {@code -Dpedigree.points} points (2000 par
+     * défaut) ; seul LTTB garde une fenêtre de points. Les deux parcours de la
+     * pédigrée avancent ensemble.
+     */
+    static void printResults(PrintStream out, List<Simulator.PointPop> popSamples,
+                             Iterator<Point> pat, Iterator<Point> mat) {
+        // (1) Population vivante tous les 100 ans
+        out.println("time,population");
+        for (Simulator.PointPop p : popSamples) {
+            out.printf(Locale.US, "%.1f,%d%n", p.time(), p.pop());
         }
 
-        // (2) Coalescence
-        List<Point> pat = paternal(sim, horizon);
-        List<Point> mat = maternal(sim, horizon);
-        Collections.reverse(pat);
-        Collections.reverse(mat);
+        // (2) Coalescence, du présent au plus ancien
+        Downsampling.Mode mode = Downsampling.Mode.valueOf(
+                System.getProperty("pedigree.downsample", "none").toUpperCase(Locale.ROOT));
+        int points = Integer.getInteger("pedigree.points", 2000);
+        Iterator<Row> rows = merge(Downsampling.apply(mode, pat, points), Downsampling.apply(mode, mat, points));
 
-        System.out.println("time,paternal,maternal");
-        int m = Math.min(pat.size(), mat.size());
-        for (int i = 0; i < m; i++) {
-            System.out.printf(Locale.US, "%.1f,%d,%d%n", pat.get(i).time(), pat.get(i).lineages(), mat.get(i).lineages());
+        out.println("time,paternal,maternal");
+        while (rows.hasNext()) {
+            Row r = rows.next();
+            out.printf(Locale.US, "%.1f,%d,%d%n", r.time(), r.paternal(), r.maternal());
         }
     }
-}
\ No newline at end of file
+}
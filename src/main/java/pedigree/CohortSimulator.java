@@ -0,0 +1,249 @@
+package pedigree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * CohortSimulator : mode approché (tau-leaping) pour les très grandes populations.
+ * <p>La population est suivie par classes d'âge d'un an et par sexe. À chaque pas
+ * d'un an, les survivants de chaque classe sont tirés selon une loi binomiale de
+ * paramètre {@code S(a+1)/S(a)} ({@link AgeModel#getSurvival}) et les naissances selon
+ * une loi de Poisson de moyenne (femmes de 16 à 40 ans) × taux de reproduction du
+ * {@link Simulator}, tant qu'il reste au moins un homme de 16 à 65 ans.</p>
+ * <p>Quand la population passe sous {@code exactThreshold}, chaque classe est
+ * convertie en individus (âge uniforme dans la classe, durée de vie conditionnelle
+ * à l'âge atteint) et la suite se fait événement par événement dans un
+ * {@link Simulator}. La pédigrée n'existe qu'à partir de ce basculement.</p>
+ */
+public final class CohortSimulator {
+
+    private static final int MAX_AGE = 128;        // classes d'âge [a, a+1)
+    private static final double STEP = 1.0;        // un pas = une classe d'âge
+
+    private final AgeModel model;
+    private final Random rnd;
+    private final long seed;
+    private final double horizon;
+    private final int exactThreshold;
+    private final double reproductionRate;
+    private final double[] survival;               // survie de la classe a à a+1
+
+    private long[] females = new long[MAX_AGE];
+    private long[] males = new long[MAX_AGE];
+    private double time;
+    private double nextSample;
+    private final List<Simulator.PointPop> popSamples = new ArrayList<>();
+    private Simulator exact;                       // non nul après basculement
+
+    public CohortSimulator(long seed, double horizon, int exactThreshold) {
+        this.model = new AgeModel();
+        this.rnd = new Random(seed);
+        this.seed = seed;
+        this.horizon = horizon;
+        this.exactThreshold = exactThreshold;
+        double span = model.expectedParenthoodSpan(Sim.MIN_MATING_AGE_F, Sim.MAX_MATING_AGE_F);
+        this.reproductionRate = 2.0 / span;        // même taux stable que Simulator
+        survival = new double[MAX_AGE];
+        for (int a = 0; a < MAX_AGE - 1; a++) {
+            // milieu de classe : l'âge exact est uniforme dans [a, a+1)
+            double s = model.getSurvival(a + 0.5);
+            survival[a] = s > 0.0 ? model.getSurvival(a + 1.5) / s : 0.0;
+        }
+    }
+
+    /** Fondateurs nés à t = 0, sexe tiré à pile ou face. */
+    public void addFounders(long count) {
+        long f = binomial(rnd, count, 0.5);
+        females[0] += f;
+        males[0] += count - f;
+    }
+
+    public long getPopulation() {
+        if (exact != null) return exact.getPopulation();
+        return sum(females, 0, MAX_AGE) + sum(males, 0, MAX_AGE);
+    }
+
+    public double getTime() {
+        return exact != null ? exact.getTime() : time;
+    }
+
+    /** Simulateur exact après basculement, sinon null. */
+    public Simulator getExact() {
+        return exact;
+    }
+
+    public List<Simulator.PointPop> getPopSamples() {
+        List<Simulator.PointPop> all = new ArrayList<>(popSamples);
+        if (exact != null) all.addAll(exact.getPopSamples());
+        return all;
+    }
+
+    /* ===================== Exécution ===================== */
+
+    public void run() {
+        while (exact == null && time < horizon) {
+            if (getPopulation() < exactThreshold) {
+                switchToExact();
+                break;
+            }
+            sample();
+            step();
+        }
+        if (exact == null) {
+            sample();
+            return;
+        }
+        exact.run(horizon);
+        exact.setTime(horizon);
+        exact.recordSample();
+    }
+
+    private void sample() {
+        while (time >= nextSample && nextSample <= horizon) {
+            popSamples.add(new Simulator.PointPop(nextSample, (int) getPopulation()));
+            nextSample += 100.0;
+        }
+    }
+
+    /** Un pas d'un an : naissances, puis vieillissement avec mortalité binomiale. */
+    private void step() {
+        long fertile = sum(females, (int) Sim.MIN_MATING_AGE_F, (int) Sim.MAX_MATING_AGE_F);
+        long mates = sum(males, (int) Sim.MIN_MATING_AGE_M, (int) Sim.MAX_MATING_AGE_M);
+        long births = mates > 0 ? poisson(rnd, fertile * reproductionRate * STEP) : 0L;
+
+        long[] nf = new long[MAX_AGE];
+        long[] nm = new long[MAX_AGE];
+        for (int a = 0; a < MAX_AGE - 1; a++) {
+            nf[a + 1] = binomial(rnd, females[a], survival[a]);
+            nm[a + 1] = binomial(rnd, males[a], survival[a]);
+        }
+        // nés en moyenne au milieu du pas
+        long survivors = binomial(rnd, births, model.getSurvival(0.5 * STEP));
+        long girls = binomial(rnd, survivors, 0.5);
+        nf[0] = girls;
+        nm[0] = survivors - girls;
+        females = nf;
+        males = nm;
+        time += STEP;
+    }
+
+    /** Convertit chaque classe en Sims et continue événement par événement. */
+    private void switchToExact() {
+        exact = new Simulator(seed, horizon);
+        exact.setTime(time);
+        exact.startSamplingAt(nextSample);
+        for (int a = 0; a < MAX_AGE; a++) {
+            materialize(females[a], a, Sim.Sex.F);
+            materialize(males[a], a, Sim.Sex.M);
+        }
+        females = males = null;
+    }
+
+    private void materialize(long count, int ageClass, Sim.Sex sex) {
+        for (long i = 0; i < count; i++) {
+            // à t = 0 les fondateurs ont exactement 0 an
+            double age = time == 0.0 ? 0.0 : ageClass + rnd.nextDouble();
+            Sim s = new Sim(null, null, time - age, sex);
+            s.setDeath(s.getBirthTime() + model.randomAge(rnd, age));
+            exact.Immigrate(s);
+        }
+    }
+
+    /* ===================== Lois discrètes ===================== */
+
+    private static long sum(long[] counts, int from, int to) {
+        long n = 0;
+        for (int a = Math.max(0, from); a < Math.min(to, counts.length); a++) n += counts[a];
+        return n;
+    }
+
+    /** Poisson(λ) : produit d'uniformes pour λ petit, approximation normale sinon. */
+    static long poisson(Random r, double lambda) {
+        if (lambda <= 0.0) return 0L;
+        if (lambda < 30.0) {
+            double limit = Math.exp(-lambda), p = 1.0;
+            long k = -1;
+            do {
+                k++;
+                p *= r.nextDouble();
+            } while (p > limit);
+            return k;
+        }
+        return Math.max(0L, Math.round(lambda + Math.sqrt(lambda) * r.nextGaussian()));
+    }
+
+    /** Binomiale(n, p) : attentes géométriques si np est petit, approximation normale sinon. */
+    static long binomial(Random r, long n, double p) {
+        if (n <= 0 || p <= 0.0) return 0L;
+        if (p >= 1.0) return n;
+        if (p > 0.5) return n - binomial(r, n, 1.0 - p);
+        double mean = n * p;
+        if (mean < 30.0) {
+            // somme d'attentes géométriques jusqu'à dépasser n essais
+            double logq = Math.log1p(-p);
+            long k = 0, trials = 0;
+            while (true) {
+                trials += (long) Math.floor(Math.log(r.nextDouble()) / logq) + 1;
+                if (trials > n) return k;
+                k++;
+            }
+        }
+        double sd = Math.sqrt(mean * (1.0 - p));
+        return Math.min(n, Math.max(0L, Math.round(mean + sd * r.nextGaussian())));
+    }
+
+    /* ===================== Erreur vs. simulateur exact ===================== */
+
+    /**
+     * Erreur relative quadratique moyenne entre deux trajectoires, sur les jalons communs.
+     * Le jalon 0 (fondation, identique par construction) et ceux où la trajectoire
+     * exacte est nulle sont ignorés.
+     */
+    public static double trajectoryError(List<Simulator.PointPop> approx, List<Simulator.PointPop> exact) {
+        int m = Math.min(approx.size(), exact.size());
+        double sq = 0.0;
+        int k = 0;
+        for (int i = 0; i < m; i++) {
+            int ref = exact.get(i).pop();
+            if (ref == 0 || exact.get(i).time() == 0.0) continue;
+            double rel = (approx.get(i).pop() - ref) / (double) ref;
+            sq += rel * rel;
+            k++;
+        }
+        return k == 0 ? 0.0 : Math.sqrt(sq / k);
+    }
+
+    /* =================== Exécutable CLI =================== */
+
+    /**
+     * Compare la trajectoire approchée à celle du {@link Simulator} exact.
+     *
+     * @param args founders horizon seed [exactThreshold]
+     */
+    public static void main(String[] args) {
+        int founders = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        double horizon = args.length > 1 ? Double.parseDouble(args[1]) : 2000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        int threshold = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+        Simulator sim = new Simulator(seed, horizon);
+        sim.addFounders(founders);
+        sim.run(horizon);
+        sim.setTime(horizon);
+        sim.recordSample();
+
+        CohortSimulator cohort = new CohortSimulator(seed, horizon, threshold);
+        cohort.addFounders(founders);
+        cohort.run();
+
+        List<Simulator.PointPop> ex = sim.getPopSamples();
+        List<Simulator.PointPop> ap = cohort.getPopSamples();
+        System.out.println("time,exact,cohort");
+        for (int i = 0; i < Math.min(ex.size(), ap.size()); i++) {
+            System.out.printf(Locale.US, "%.1f,%d,%d%n", ex.get(i).time(), ex.get(i).pop(), ap.get(i).pop());
+        }
+        System.out.printf(Locale.US, "relative RMS error: %.4f%n", trajectoryError(ap, ex));
+    }
+}
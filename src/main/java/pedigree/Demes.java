@@ -0,0 +1,251 @@
+package pedigree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Demes : population structurée en plusieurs dèmes panmictiques (modèle en îles).
+ * <p>Chaque dème possède son propre {@link Simulator} (file d'événements, population
+ * vivante, hommes disponibles) et tourne sur son propre thread. La migration est
+ * natale : un nouveau-né quitte son dème avec probabilité {@code migrationRate}
+ * vers un autre dème choisi uniformément.</p>
+ * <p>Synchronisation conservatrice : les dèmes avancent par fenêtres de longueur
+ * {@code interval} ≤ âge minimal de reproduction. Un migrant né pendant une fenêtre
+ * n'a aucun événement avant sa majorité (sauf sa mort), il peut donc être livré
+ * au dème d'accueil à la frontière suivante sans fausser la chronologie. Les
+ * échanges passent par des files bornées ({@link ArrayBlockingQueue}) ; un
+ * migrant est hors population entre sa naissance et la frontière.</p>
+ * <p>Les arrivées d'une fenêtre sont mises de côté puis intégrées ensemble, triées par
+ * dème d'origine et rang de naissance : l'ordre des {@code Immigrate}, donc les
+ * tirages du dème d'accueil, ne dépend pas de l'ordonnancement des threads. Une même
+ * graine donne la même simulation.</p>
+ */
+public final class Demes {
+
+    private static final int DEFAULT_INBOX_CAPACITY = 4096;
+
+    /** Migrant en transit : dème d'origine et rang de naissance parmi ses émigrants. */
+    private record Migrant(int source, long order, Sim sim) {}
+
+    private static final Comparator<Migrant> ARRIVAL_ORDER =
+            Comparator.comparingInt(Migrant::source).thenComparingLong(Migrant::order);
+
+    private final Simulator[] demes;
+    private final Random[] rnd;
+    private final long[] emigrants;                        // par dème d'origine
+    private final List<List<List<Migrant>>> outbox;        // [source][destination]
+    private final List<ArrayBlockingQueue<Migrant>> inbox;
+    private final List<List<Migrant>> arrivals;            // reçus pendant la fenêtre, par destination
+    private final double migrationRate;
+    private final double horizon;
+    private final double interval;
+
+    public Demes(int count, double migrationRate, long seed, double horizon, double interval, int inboxCapacity) {
+        double lookahead = Math.min(Sim.MIN_MATING_AGE_F, Sim.MIN_MATING_AGE_M);
+        if (count < 1) throw new IllegalArgumentException("at least one deme required");
+        if (migrationRate < 0.0 || migrationRate > 1.0) throw new IllegalArgumentException("migration rate must be in [0,1]");
+        if (!(interval > 0.0 && interval <= lookahead))
+            throw new IllegalArgumentException("interval must be in (0, " + lookahead + "]");
+        this.migrationRate = count > 1 ? migrationRate : 0.0;
+        this.horizon = horizon;
+        this.interval = interval;
+        demes = new Simulator[count];
+        rnd = new Random[count];
+        emigrants = new long[count];
+        outbox = new ArrayList<>(count);
+        inbox = new ArrayList<>(count);
+        arrivals = new ArrayList<>(count);
+        Random seeds = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            demes[i] = new Simulator(seeds.nextLong(), horizon);
+            rnd[i] = new Random(seeds.nextLong());
+            List<List<Migrant>> out = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) out.add(new ArrayList<>());
+            outbox.add(out);
+            inbox.add(new ArrayBlockingQueue<>(inboxCapacity));
+            arrivals.add(new ArrayList<>());
+            final int src = i;
+            demes[i].setDisperser(child -> disperse(src, child));
+        }
+    }
+
+    public Demes(int count, double migrationRate, long seed, double horizon) {
+        this(count, migrationRate, seed, horizon,
+             Math.min(Sim.MIN_MATING_AGE_F, Sim.MIN_MATING_AGE_M), DEFAULT_INBOX_CAPACITY);
+    }
+
+    public int size() {
+        return demes.length;
+    }
+
+    public Simulator getDeme(int i) {
+        return demes[i];
+    }
+
+    /** Planifie {@code perDeme} fondateurs dans chaque dème. */
+    public void addFounders(int perDeme) {
+        for (Simulator d : demes) {
+            d.addFounders(perDeme);
+        }
+    }
+
+    /* ===================== Exécution ===================== */
+
+    /** Fait tourner tous les dèmes jusqu'à l'horizon, un thread par dème. */
+    public void run() throws InterruptedException {
+        Phaser phaser = new Phaser(demes.length);
+        ExecutorService pool = Executors.newFixedThreadPool(demes.length);
+        try {
+            List<Future<?>> tasks = new ArrayList<>(demes.length);
+            for (int i = 0; i < demes.length; i++) {
+                final int d = i;
+                tasks.add(pool.submit(() -> {
+                    try {
+                        runDeme(d, phaser);
+                    } catch (RuntimeException | Error ex) {
+                        phaser.forceTermination();          // débloque les autres dèmes
+                        throw ex;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : tasks) {
+                try {
+                    f.get();
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException("deme failed", ex.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void runDeme(int d, Phaser phaser) {
+        Simulator sim = demes[d];
+        double boundary = 0.0;
+        while (boundary < horizon && !phaser.isTerminated()) {
+            boundary = Math.min(boundary + interval, horizon);
+            sim.run(boundary);
+            exchange(d, phaser);
+        }
+        sim.recordSample();
+    }
+
+    /**
+     * Frontière de fenêtre : envoie les migrants puis reçoit ceux des autres dèmes.
+     * Un dème bloqué sur une file pleine vide la sienne en attendant, et chacun
+     * continue de vider sa file tant que tous n'ont pas fini d'envoyer : pas d'interblocage.
+     * Les arrivées ne sont intégrées qu'une fois toutes reçues, dans un ordre fixe.
+     */
+    private void exchange(int d, Phaser phaser) {
+        int phase = phaser.getPhase();
+        List<List<Migrant>> out = outbox.get(d);
+        for (int j = 0; j < out.size(); j++) {
+            ArrayBlockingQueue<Migrant> target = inbox.get(j);
+            for (Migrant m : out.get(j)) {
+                while (!target.offer(m)) {
+                    if (phaser.isTerminated()) return;
+                    drain(d);
+                    Thread.onSpinWait();
+                }
+            }
+            out.get(j).clear();
+        }
+        phaser.arrive();
+        ArrayBlockingQueue<Migrant> in = inbox.get(d);
+        List<Migrant> received = arrivals.get(d);
+        try {
+            while (phaser.getPhase() == phase) {
+                Migrant m = in.poll(1, TimeUnit.MILLISECONDS);
+                if (m != null) received.add(m);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            phaser.forceTermination();
+            return;
+        }
+        drain(d);
+        // tous ont fini d'envoyer : la fenêtre est complète
+        received.sort(ARRIVAL_ORDER);
+        for (Migrant m : received) demes[d].Immigrate(m.sim());
+        received.clear();
+        // personne ne renvoie avant que tous aient vidé leur file
+        phaser.arriveAndAwaitAdvance();
+    }
+
+    private void drain(int d) {
+        Migrant m;
+        while ((m = inbox.get(d).poll()) != null) {
+            arrivals.get(d).add(m);
+        }
+    }
+
+    private boolean disperse(int src, Sim child) {
+        Random r = rnd[src];
+        if (migrationRate == 0.0 || r.nextDouble() >= migrationRate) return false;
+        int dst = r.nextInt(demes.length - 1);
+        if (dst >= src) dst++;
+        outbox.get(src).get(dst).add(new Migrant(src, emigrants[src]++, child));
+        return true;
+    }
+
+    /* ===================== Résultats ===================== */
+
+    /** Population vivante de tous les dèmes (pédigrée fusionnée). */
+    public Collection<Sim> getLivingPopulation() {
+        List<Sim> pop = new ArrayList<>();
+        for (Simulator d : demes) pop.addAll(d.getLivingPopulation());
+        return pop;
+    }
+
+    public int getPopulation() {
+        int n = 0;
+        for (Simulator d : demes) n += d.getPopulation();
+        return n;
+    }
+
+    /** Somme des échantillons de population de chaque dème (mêmes jalons de 100 ans). */
+    public List<Simulator.PointPop> getPopSamples() {
+        List<Simulator.PointPop> total = new ArrayList<>();
+        int m = Integer.MAX_VALUE;
+        for (Simulator d : demes) m = Math.min(m, d.getPopSamples().size());
+        for (int i = 0; i < m; i++) {
+            int pop = 0;
+            for (Simulator d : demes) pop += d.getPopSamples().get(i).pop();
+            total.add(new Simulator.PointPop(demes[0].getPopSamples().get(i).time(), pop));
+        }
+        return total;
+    }
+
+    /* =================== Exécutable CLI =================== */
+
+    /**
+     * @param args founders demes migration horizon seed
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int founders = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        double migration = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+        double horizon = args.length > 3 ? Double.parseDouble(args[3]) : 20000;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+
+        Demes demes = new Demes(count, migration, seed, horizon);
+        demes.addFounders(Math.max(1, founders / count));
+        demes.run();
+
+        Collection<Sim> living = demes.getLivingPopulation();
+        Coalescence.printResults(System.out, demes.getPopSamples(),
+                Coalescence.paternal(living, horizon), Coalescence.maternal(living, horizon));
+    }
+}
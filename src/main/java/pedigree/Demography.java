@@ -0,0 +1,132 @@
+package pedigree;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import pedigree.Sim.Sex;
+
+/**
+ * Demography : compteurs démographiques tenus à jour incrémentalement.
+ * <p>Les vivants sont comptés par cohorte de naissance d'un an et par sexe
+ * (tampon circulaire de {@value #CAPACITY} ans). Le passage d'une classe d'âge à la
+ * suivante est implicite : à l'instant t, la cohorte née l'année y a l'âge t − y.
+ * Naissances et morts coûtent O(1) ; une pyramide des âges ou le nombre de femmes
+ * fertiles se lisent en O(nombre de cohortes), sans parcourir la population.</p>
+ * <p>Le nombre de couples formés (partenaires mutuels et vivants) est maintenu par
+ * {@link #pairFormed()} / {@link #pairEnded()}.</p>
+ */
+public final class Demography {
+
+    /** Âge maximal représentable ; bien au-delà de la queue de Gompertz-Makeham. */
+    static final int CAPACITY = 256;
+
+    private final int[] females = new int[CAPACITY];
+    private final int[] males = new int[CAPACITY];
+    private int femaleCount;
+    private int maleCount;
+    private int matedPairs;
+
+    /**
+     * Échantillon démographique à l'instant {@code time}. Les pyramides comptent les
+     * vivants par tranche de {@code bucketYears} ans (indice 0 : les plus jeunes).
+     */
+    public record Sample(double time, int males, int females, int matedPairs,
+                         int fertileFemales, int availableMales,
+                         int bucketYears, int[] maleAges, int[] femaleAges) {
+        /** Hommes pour une femme (NaN sans femme). */
+        public double sexRatio() {
+            return females == 0 ? Double.NaN : males / (double) females;
+        }
+    }
+
+    private static int cohort(Sim s) {
+        return Math.floorMod((int) Math.floor(s.getBirthTime()), CAPACITY);
+    }
+
+    void born(Sim s) {
+        if (s.getSex() == Sex.F) {
+            females[cohort(s)]++;
+            femaleCount++;
+        } else {
+            males[cohort(s)]++;
+            maleCount++;
+        }
+    }
+
+    void died(Sim s) {
+        if (s.getSex() == Sex.F) {
+            females[cohort(s)]--;
+            femaleCount--;
+        } else {
+            males[cohort(s)]--;
+            maleCount--;
+        }
+    }
+
+    void pairFormed() { matedPairs++; }
+    void pairEnded()  { matedPairs--; }
+
+    /** Compteurs bruts, pour l'état sérialisé du simulateur. */
+    void write(DataOutput out) throws IOException {
+        for (int i = 0; i < CAPACITY; i++) {
+            out.writeInt(females[i]);
+            out.writeInt(males[i]);
+        }
+        out.writeInt(femaleCount);
+        out.writeInt(maleCount);
+        out.writeInt(matedPairs);
+    }
+
+    void read(DataInput in) throws IOException {
+        for (int i = 0; i < CAPACITY; i++) {
+            females[i] = in.readInt();
+            males[i] = in.readInt();
+        }
+        femaleCount = in.readInt();
+        maleCount = in.readInt();
+        matedPairs = in.readInt();
+    }
+
+    public int getMales()       { return maleCount; }
+    public int getFemales()     { return femaleCount; }
+    public int getMatedPairs()  { return matedPairs; }
+
+    /** Femmes dont l'âge à {@code time} est dans [MIN_MATING_AGE_F, MAX_MATING_AGE_F]. */
+    public int fertileFemales(double time) {
+        return count(females, time, Sim.MIN_MATING_AGE_F, Sim.MAX_MATING_AGE_F);
+    }
+
+    /**
+     * Vivants dont toute la cohorte a un âge dans [minAge, maxAge] à {@code time}
+     * (exact pour {@code time} entier et des bornes entières).
+     */
+    private static int count(int[] counts, double time, double minAge, double maxAge) {
+        long last = (long) Math.floor(time - minAge) - 1;   // cohorte la plus jeune entièrement ≥ minAge
+        long first = (long) Math.ceil(time - maxAge);        // cohorte la plus vieille entièrement ≤ maxAge
+        int n = 0;
+        for (long y = first; y <= last && y > last - CAPACITY; y++) {
+            n += counts[(int) Math.floorMod(y, (long) CAPACITY)];
+        }
+        return n;
+    }
+
+    /** Pyramide des âges à {@code time} par tranches de {@code bucketYears} ans. */
+    private static int[] pyramid(int[] counts, double time, int bucketYears) {
+        int[] buckets = new int[(CAPACITY + bucketYears - 1) / bucketYears];
+        long newest = (long) Math.floor(time);
+        for (int age = 0; age < CAPACITY; age++) {
+            int n = counts[(int) Math.floorMod(newest - age, (long) CAPACITY)];
+            // cohorte née l'année newest-age : âge dans (age-1, age], classé en age-1
+            if (n != 0) buckets[Math.max(0, age - 1) / bucketYears] += n;
+        }
+        return buckets;
+    }
+
+    /** Échantillon complet, en O(CAPACITY). */
+    public Sample sample(double time, int availableMales, int bucketYears) {
+        return new Sample(time, maleCount, femaleCount, matedPairs,
+                fertileFemales(time), availableMales, bucketYears,
+                pyramid(males, time, bucketYears), pyramid(females, time, bucketYears));
+    }
+}
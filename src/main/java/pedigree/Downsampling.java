@@ -0,0 +1,219 @@
+package pedigree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Downsampling : réduction à la volée d'une courbe de coalescence (temps décroissant)
+ * à un nombre borné de points, pour le tracé.
+ * <ul>
+ *   <li>{@link #timeBins} : intervalles de temps fixes sur [0, temps présent], un point
+ *       par intervalle (le dernier : valeur de la courbe en escalier à sa sortie) ;
+ *       mémoire O(1) ;</li>
+ *   <li>{@link #lttb} : <em>Largest Triangle Three Buckets</em> (Steinarsson, 2013),
+ *       qui garde la forme de la courbe. Les seaux sont découpés par indice ; le nombre
+ *       de points est borné par le nombre n de lignées du premier point (chaque point
+ *       suivant est une fusion), ce qui fixe leur taille sans connaître la longueur du
+ *       flux. Mémoire O(n / points).</li>
+ * </ul>
+ * Premier et dernier points sont toujours conservés.
+ */
+public final class Downsampling {
+
+    private Downsampling() {}
+
+    /** Mode de réduction choisi en ligne de commande. */
+    public enum Mode {NONE, BINS, LTTB}
+
+    /** Applique {@code mode} avec au plus {@code points} points ({@link Mode#NONE} : inchangé). */
+    public static Iterator<Coalescence.Point> apply(Mode mode, Iterator<Coalescence.Point> in, int points) {
+        return switch (mode) {
+            case NONE -> in;
+            case BINS -> timeBins(in, Math.max(1, points - 1));
+            case LTTB -> lttb(in, points);
+        };
+    }
+
+    /**
+     * Un point par intervalle de temps, {@code bins} intervalles égaux entre le temps
+     * présent (premier point) et 0 : au plus {@code bins + 1} points.
+     */
+    public static Iterator<Coalescence.Point> timeBins(Iterator<Coalescence.Point> in, int bins) {
+        if (bins < 1) throw new IllegalArgumentException("at least one bin required");
+        return new Iterator<>() {
+            private boolean started;
+            private double top, width;
+            private long bin;
+            private Coalescence.Point held;                 // dernier point lu de l'intervalle courant
+            private Coalescence.Point out;
+
+            @Override
+            public boolean hasNext() {
+                if (out != null) return true;
+                if (!started) {
+                    started = true;
+                    if (!in.hasNext()) return false;
+                    out = in.next();                        // temps présent, toujours gardé
+                    top = out.time();
+                    width = top / bins;
+                    bin = -1;
+                    return true;
+                }
+                while (in.hasNext()) {
+                    Coalescence.Point p = in.next();
+                    long b = width > 0.0 ? Math.min(bins - 1, (long) ((top - p.time()) / width)) : 0;
+                    Coalescence.Point previous = held;
+                    long previousBin = bin;
+                    held = p;
+                    bin = b;
+                    if (previous != null && b != previousBin) {
+                        out = previous;
+                        return true;
+                    }
+                }
+                out = held;                                 // dernier point du flux
+                held = null;
+                return out != null;
+            }
+
+            @Override
+            public Coalescence.Point next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Coalescence.Point p = out;
+                out = null;
+                return p;
+            }
+        };
+    }
+
+    /**
+     * Largest Triangle Three Buckets en flux : au plus {@code threshold} points. Si la
+     * courbe ne peut pas dépasser {@code threshold} points, elle est rendue telle quelle.
+     */
+    public static Iterator<Coalescence.Point> lttb(Iterator<Coalescence.Point> in, int threshold) {
+        if (threshold < 3) throw new IllegalArgumentException("threshold must be at least 3");
+        return new Lttb(in, threshold);
+    }
+
+    private static final class Lttb implements Iterator<Coalescence.Point> {
+        private final Iterator<Coalescence.Point> in;
+        private final int threshold;
+        private final ArrayDeque<Coalescence.Point> out = new ArrayDeque<>();
+        private boolean started, finished, passThrough;
+        private double every;                       // points par seau (milieu de courbe)
+        private int maxPoints;                      // borne sur la longueur du flux (n)
+        private int read;                           // points lus (indice du prochain)
+        private int bucket;                         // indice du seau courant
+        private Coalescence.Point a;                // dernier point retenu
+        private List<Coalescence.Point> current;
+
+        Lttb(Iterator<Coalescence.Point> in, int threshold) {
+            this.in = in;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (out.isEmpty() && !finished) step();
+            return !out.isEmpty();
+        }
+
+        @Override
+        public Coalescence.Point next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return out.poll();
+        }
+
+        /**
+         * Fin (exclue) du seau {@code i} en indices de points ; le premier point est
+         * l'indice 0 et le dernier seau prend tout le reste.
+         */
+        private int bucketEnd(int i) {
+            if (i >= threshold - 2) return Integer.MAX_VALUE;
+            if (i == threshold - 3) return maxPoints - 1;       // le dernier seau : le dernier point seul
+            return (int) Math.floor((i + 1) * every) + 1;
+        }
+
+        /** Lit les points du seau {@code i}. */
+        private List<Coalescence.Point> fill(int i) {
+            int end = bucketEnd(i);
+            List<Coalescence.Point> b = new ArrayList<>(Math.max(0, Math.min(end, maxPoints) - read));
+            while (read < end && in.hasNext()) {
+                b.add(in.next());
+                read++;
+            }
+            return b;
+        }
+
+        private void step() {
+            if (!started) {
+                started = true;
+                if (!in.hasNext()) {
+                    finished = true;
+                    return;
+                }
+                a = in.next();
+                read = 1;
+                out.add(a);
+                maxPoints = Math.max(2, a.lineages());   // n lignées : au plus n - 1 fusions
+                passThrough = maxPoints <= threshold;
+                every = (maxPoints - 2) / (double) (threshold - 2);
+                if (!passThrough) current = fill(0);
+                return;
+            }
+            if (passThrough) {
+                if (in.hasNext()) out.add(in.next());
+                else finished = true;
+                return;
+            }
+            List<Coalescence.Point> next = fill(++bucket);
+            if (in.hasNext()) {                         // le seau suivant n'est pas le dernier
+                select(current, next);
+                current = next;
+                return;
+            }
+            // fin du flux : le dernier point est retenu à part
+            finished = true;
+            List<Coalescence.Point> tail = next.isEmpty() ? current : next;
+            if (tail.isEmpty()) return;
+            Coalescence.Point last = tail.remove(tail.size() - 1);
+            if (!next.isEmpty()) {
+                select(current, next);
+                select(next, List.of(last));
+            } else {
+                select(current, List.of(last));
+            }
+            out.add(last);
+        }
+
+        /**
+         * Retient le point de {@code b} qui forme le plus grand triangle avec le point
+         * retenu précédent et le barycentre de {@code c}.
+         */
+        private void select(List<Coalescence.Point> b, List<Coalescence.Point> c) {
+            if (b.isEmpty()) return;
+            double ct = 0.0, cn = 0.0;
+            for (Coalescence.Point p : c) {
+                ct += p.time();
+                cn += p.lineages();
+            }
+            ct /= c.size();
+            cn /= c.size();
+            Coalescence.Point best = null;
+            double bestArea = -1.0;
+            for (Coalescence.Point p : b) {
+                double area = Math.abs((a.time() - ct) * (p.lineages() - a.lineages())
+                        - (a.time() - p.time()) * (cn - a.lineages()));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = p;
+                }
+            }
+            out.add(best);
+            a = best;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package pedigree;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * FlightEvents : événements Java Flight Recorder des chemins chauds.
+ * <p>Les gestionnaires du {@link Simulator} sont des événements à durée, seuillés
+ * (par défaut 20 µs, voir {@code pedigree.jfc}) : seuls les appels lents sont
+ * enregistrés. Hors enregistrement, le coût se réduit à un test de drapeau.
+ * Les redimensionnements de {@link PriorityQueueO} et les phases de
+ * {@link Coalescence} sont rares et toujours enregistrés.</p>
+ */
+final class FlightEvents {
+
+    private FlightEvents() {}
+
+    /** Commun aux gestionnaires : date simulée et population au moment de l'appel. */
+    @Category({"Pedigree", "Simulator"})
+    @StackTrace(false)
+    abstract static class Handler extends Event {
+        @Label("Simulated Time")
+        double simTime;
+
+        @Label("Population")
+        int population;
+    }
+
+    @Name("pedigree.Birth")
+    @Label("Birth")
+    @Threshold("20 us")
+    static final class Birth extends Handler {}
+
+    @Name("pedigree.Death")
+    @Label("Death")
+    @Threshold("20 us")
+    static final class Death extends Handler {}
+
+    @Name("pedigree.Reproduction")
+    @Label("Reproduction")
+    @Description("Tentative de reproduction, Mate et Birth compris")
+    @Threshold("20 us")
+    static final class Reproduction extends Handler {}
+
+    @Name("pedigree.Mate")
+    @Label("Mate")
+    @Threshold("20 us")
+    static final class Mate extends Handler {
+        @Label("Available Males")
+        int availableMales;
+    }
+
+    @Name("pedigree.QueueResize")
+    @Label("Priority Queue Resize")
+    @Category({"Pedigree", "PriorityQueueO"})
+    static final class QueueResize extends Event {
+        @Label("Old Capacity")
+        int oldCapacity;
+
+        @Label("New Capacity")
+        int newCapacity;
+
+        @Label("Size")
+        int size;
+    }
+
+    @Name("pedigree.CoalescencePhase")
+    @Label("Coalescence Phase")
+    @Category({"Pedigree", "Coalescence"})
+    @StackTrace(false)
+    static final class CoalescencePhase extends Event {
+        @Label("Lineage")
+        String lineage;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Population")
+        int population;
+
+        @Label("Lineages")
+        int lineages;
+    }
+}
@@ -0,0 +1,166 @@
+package pedigree;
+
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MultiQueue : file de priorité concurrente <em>relâchée</em>, variante partagée de
+ * {@link PriorityQueueO}.
+ * <p>Les éléments sont répartis entre {@code q} sous-files, chacune un
+ * {@link PriorityQueueO} protégé par son propre verrou. {@code add} insère dans une
+ * sous-file tirée au hasard ; {@code poll} tire deux sous-files au hasard, compare leurs
+ * têtes (lues sans verrou) et retire la meilleure. Un verrou déjà pris fait simplement
+ * tirer une autre sous-file : les threads ne s'attendent presque jamais.</p>
+ * <ul>
+ *   <li>add / poll : O(log(n/q)) sous un seul verrou</li>
+ *   <li>size : O(1), exact au repos</li>
+ * </ul>
+ * <p><b>Erreur de rang.</b> {@code poll} ne renvoie pas forcément le minimum global.
+ * L'erreur de rang d'un retrait est le nombre d'éléments présents strictement
+ * meilleurs que celui renvoyé. Avec insertions uniformes et choix du meilleur de deux,
+ * elle est en espérance O(q) et, pour n éléments, son maximum est O(q log n) avec forte
+ * probabilité (Rihani, Sanders et Dementiev, 2015 ; Alistarh et al., 2017). La borne est
+ * probabiliste ; mesurée sur 10⁵ retraits avec q = 8, l'erreur moyenne est d'environ
+ * 0,7·q (voir {@code MultiQueueTest}). Avec {@code q = 1}, l'ordre est exact.</p>
+ * <p>{@code poll} ne renvoie {@code null} qu'après avoir trouvé toutes les sous-files
+ * vides lors d'un balayage ; un élément ajouté pendant ce balayage peut être manqué.</p>
+ * @param <T> type des éléments
+ */
+public final class MultiQueue<T> {
+
+    /** Tirages sans succès avant de balayer toutes les sous-files. */
+    private static final int MAX_ATTEMPTS = 16;
+
+    /** Sous-file : tas, verrou et tête publiée pour les lectures sans verrou. */
+    private static final class Shard<T> {
+        final ReentrantLock lock = new ReentrantLock();
+        final PriorityQueueO<T> heap;
+        volatile T top;
+
+        Shard(Comparator<? super T> comp) {
+            heap = new PriorityQueueO<>(comp);
+        }
+    }
+
+    private final Shard<T>[] shards;
+    private final Comparator<? super T> comp;
+    private final Random random;                    // null : ThreadLocalRandom du thread appelant
+    private final AtomicInteger size = new AtomicInteger();
+
+    /* ---------- Constructeurs ---------- */
+
+    /** Deux sous-files par processeur, ordre naturel. */
+    public MultiQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /** {@code queues} sous-files, ordre naturel (T doit implémenter {@link Comparable}). */
+    public MultiQueue(int queues) {
+        this(queues, null);
+    }
+
+    /** {@code queues} sous-files, ordre défini par un {@link Comparator}. */
+    public MultiQueue(int queues, Comparator<? super T> comparator) {
+        this(queues, comparator, null);
+    }
+
+    /**
+     * Tirages des sous-files faits avec {@code random} (partagé par tous les threads) :
+     * reproductible en mono-thread, pour les tests.
+     */
+    @SuppressWarnings("unchecked")
+    MultiQueue(int queues, Comparator<? super T> comparator, Random random) {
+        if (queues < 1) throw new IllegalArgumentException("at least one queue required");
+        this.comp = comparator != null ? comparator
+                : (a, b) -> ((Comparable<? super T>) a).compareTo(b);
+        this.random = random;
+        shards = (Shard<T>[]) new Shard<?>[queues];
+        for (int i = 0; i < queues; i++) shards[i] = new Shard<>(comp);
+    }
+
+    /* ---------- API publique ---------- */
+
+    /** Ajout dans une sous-file libre tirée au hasard. */
+    public void add(T element) {
+        Objects.requireNonNull(element, "element must not be null");
+        Random rnd = random();
+        Shard<T> s = shards[rnd.nextInt(shards.length)];
+        for (int k = 1; !s.lock.tryLock(); k++) {
+            if (k == MAX_ATTEMPTS) {
+                s.lock.lock();
+                break;
+            }
+            s = shards[rnd.nextInt(shards.length)];
+        }
+        try {
+            s.heap.add(element);
+            s.top = s.heap.peek();
+            size.incrementAndGet();
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /**
+     * Retire la meilleure tête de deux sous-files tirées au hasard — erreur de rang
+     * O(q) en espérance. {@code null} si la file est vide.
+     */
+    public T poll() {
+        Random rnd = random();
+        for (int k = 0; k < MAX_ATTEMPTS; k++) {
+            if (size.get() == 0) return null;
+            Shard<T> a = shards[rnd.nextInt(shards.length)];
+            Shard<T> b = shards[rnd.nextInt(shards.length)];
+            T ta = a.top, tb = b.top;
+            Shard<T> s = tb == null || (ta != null && comp.compare(ta, tb) <= 0) ? a : b;
+            if (s.top == null || !s.lock.tryLock()) continue;
+            try {
+                T e = pollLocked(s);
+                if (e != null) return e;
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        return sweep(rnd.nextInt(shards.length));
+    }
+
+    /** Nombre d'éléments (exact si aucune opération n'est en cours). */
+    public int size()            { return size.get(); }
+    public boolean isEmpty()     { return size.get() == 0; }
+
+    /** Nombre de sous-files {@code q}. */
+    public int queues()          { return shards.length; }
+
+    /* ---------- Implémentation interne ---------- */
+
+    private Random random() {
+        return random != null ? random : ThreadLocalRandom.current();
+    }
+
+    private T pollLocked(Shard<T> s) {
+        T e = s.heap.poll();
+        s.top = s.heap.peek();
+        if (e != null) size.decrementAndGet();
+        return e;
+    }
+
+    /** Dernier recours : parcourt toutes les sous-files à partir de {@code start}, en attendant les verrous. */
+    private T sweep(int start) {
+        for (int k = 0; k < shards.length; k++) {
+            Shard<T> s = shards[(start + k) % shards.length];
+            if (s.top == null) continue;
+            s.lock.lock();
+            try {
+                T e = pollLocked(s);
+                if (e != null) return e;
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        return null;
+    }
+}
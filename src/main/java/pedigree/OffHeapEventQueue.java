@@ -0,0 +1,290 @@
+package pedigree;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import pedigree.Simulator.Event;
+import pedigree.Simulator.Events;
+
+/**
+ * OffHeapEventQueue : file des événements d'un {@link Simulator} rangée hors du tas Java.
+ * <p>Chaque événement est un enregistrement de 16 octets dans un {@link ByteBuffer}
+ * direct : date (double), type et identifiant du Sim (long). Les enregistrements sont
+ * eux-mêmes rangés en tas binaire ; aucun objet ne vit sur le tas Java par événement en
+ * attente. Les Sims sont référencés par identifiant : une table des Sims en file,
+ * avec compteur de références, les retrouve au retrait. Elle grandit avec le nombre de
+ * Sims concernés (à peu près la population vivante), pas avec la profondeur de la file.
+ * Les {@link Event} sont recréés à chaque {@code poll}, objets jeunes et éphémères.</p>
+ * <ul>
+ *   <li>add / poll : O(log n), mêmes comparaisons que {@link PriorityQueueO}, donc même
+ *       ordre de sortie, égalités comprises : une simulation est identique avec l'une
+ *       ou l'autre file</li>
+ *   <li>addAll : heapify O(n+m)</li>
+ *   <li>capacité : 2³¹ octets par tampon, soit environ 134 millions d'événements</li>
+ * </ul>
+ * <p>La mémoire directe est bornée par {@code -XX:MaxDirectMemorySize} (par défaut, la
+ * taille maximale du tas). Un tampon remplacé lors d'un agrandissement reste alloué
+ * jusqu'à sa collecte par le GC : pendant la copie, l'ancien tampon (c) et le nouveau
+ * (1,5 c) coexistent, et le pic de mémoire directe atteint environ 2,5 fois la taille
+ * de la file. Avec la borne par défaut, une file profonde sur un petit tas lève
+ * {@link OutOfMemoryError} (« Cannot reserve … bytes of direct buffer memory ») bien
+ * avant que le tas ne soit plein : prévoir {@code -XX:MaxDirectMemorySize} ≥ 2,5 × 16
+ * octets × profondeur maximale, et ne pas désactiver {@code System.gc()}
+ * ({@code -XX:+DisableExplicitGC}), que le JDK appelle pour rendre les anciens tampons
+ * avant d'abandonner.</p>
+ */
+public final class OffHeapEventQueue implements Simulator.EventStore {
+
+    private static final int RECORD = 16;                   // date (8) + type et identifiant (8)
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / RECORD;
+    private static final int NO_SIM = -1;
+    private static final Events[] KINDS = Events.values();
+
+    private final Simulator owner;
+    private ByteBuffer buffer;
+    private int capacity;                                   // en enregistrements
+    private int size;
+    private final SimTable sims = new SimTable();
+
+    /** File vide ; les événements rendus appartiennent à {@code owner}. */
+    public OffHeapEventQueue(Simulator owner) {
+        this.owner = Objects.requireNonNull(owner, "owner must not be null");
+        allocate(1024);
+    }
+
+    /* ---------- API publique ---------- */
+
+    @Override
+    public void add(Event e) {
+        Objects.requireNonNull(e, "element must not be null");
+        if (size == capacity) grow(size + 1);
+        siftUp(size++, e.getTime(), retain(e));
+    }
+
+    /** Ajout en bloc : heapify bottom-up comme {@link PriorityQueueO#addAll}. */
+    @Override
+    public void addAll(List<Event> events) {
+        Objects.requireNonNull(events, "collection must not be null");
+        if (size + events.size() > capacity) grow(size + events.size());
+        for (Event e : events) {
+            Objects.requireNonNull(e, "element must not be null");
+            write(size++, e.getTime(), retain(e));
+        }
+        for (int i = (size - 2) >> 1; i >= 0; i--) {
+            siftDown(i, time(i), meta(i));
+        }
+    }
+
+    @Override
+    public Event poll() {
+        if (size == 0) return null;
+        Event root = event(0);
+        sims.release(root.getSim());
+        int last = --size;
+        if (size > 0) siftDown(0, time(last), meta(last));
+        return root;
+    }
+
+    @Override
+    public double peekTime() {
+        return size == 0 ? Double.POSITIVE_INFINITY : time(0);
+    }
+
+    @Override public int size()            { return size; }
+    @Override public boolean isEmpty()     { return size == 0; }
+
+    /** Copie des événements en attente, dans l'ordre du tas. */
+    @Override
+    public List<Event> toList() {
+        List<Event> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) list.add(event(i));
+        return list;
+    }
+
+    /** Octets réservés hors du tas. */
+    public long offHeapBytes() {
+        return (long) capacity * RECORD;
+    }
+
+    /* ---------- Implémentation interne ---------- */
+
+    private void allocate(int records) {
+        ByteBuffer fresh = ByteBuffer.allocateDirect(records * RECORD).order(ByteOrder.nativeOrder());
+        if (buffer != null) fresh.put(0, buffer, 0, size * RECORD);
+        buffer = fresh;
+        capacity = records;
+    }
+
+    /** Agrandit le tampon (facteur 1,5 comme {@link PriorityQueueO}) et le signale à JFR. */
+    private void grow(int minCapacity) {
+        if (minCapacity > MAX_CAPACITY) throw new IllegalStateException("off-heap event queue full: " + size + " events");
+        FlightEvents.QueueResize jfr = new FlightEvents.QueueResize();
+        jfr.begin();
+        int old = capacity;
+        allocate(Math.min(MAX_CAPACITY, Math.max(minCapacity, old + (old >> 1))));
+        jfr.end();
+        if (jfr.shouldCommit()) {
+            jfr.oldCapacity = old;
+            jfr.newCapacity = capacity;
+            jfr.size = size;
+            jfr.commit();
+        }
+    }
+
+    /** Inscrit le Sim de {@code e} et renvoie le type et l'identifiant codés. */
+    private long retain(Event e) {
+        Sim s = e.getSim();
+        sims.retain(s);
+        int id = s == null ? NO_SIM : s.getIdent();
+        return (long) e.getEvent().ordinal() << 32 | (id & 0xFFFFFFFFL);
+    }
+
+    private Event event(int i) {
+        long meta = meta(i);
+        int id = (int) meta;
+        return owner.new Event(KINDS[(int) (meta >>> 32)], id == NO_SIM ? null : sims.get(id), time(i));
+    }
+
+    private double time(int i) { return buffer.getDouble(i * RECORD); }
+    private long meta(int i)   { return buffer.getLong(i * RECORD + 8); }
+
+    private void write(int i, double time, long meta) {
+        buffer.putDouble(i * RECORD, time);
+        buffer.putLong(i * RECORD + 8, meta);
+    }
+
+    /** Ordre de {@code Simulator.EventComparator} : date, puis type. */
+    private static int compare(double t1, long m1, double t2, long m2) {
+        int c = Double.compare(t1, t2);
+        return c != 0 ? c : Integer.compare((int) (m1 >>> 32), (int) (m2 >>> 32));
+    }
+
+    /** Remonte l'enregistrement (t, m) depuis la case libre {@code idx}. */
+    private void siftUp(int idx, double t, long m) {
+        while (idx > 0) {
+            int parent = (idx - 1) >>> 1;
+            double pt = time(parent);
+            long pm = meta(parent);
+            if (compare(t, m, pt, pm) >= 0) break;
+            write(idx, pt, pm);
+            idx = parent;
+        }
+        write(idx, t, m);
+    }
+
+    /** Descend l'enregistrement (t, m) depuis la case libre {@code idx}. */
+    private void siftDown(int idx, double t, long m) {
+        while (true) {
+            int left = (idx << 1) + 1;
+            int right = left + 1;
+            int smallest = idx;
+            double st = t;
+            long sm = m;
+            if (left < size && compare(time(left), meta(left), st, sm) < 0) {
+                smallest = left;
+                st = time(left);
+                sm = meta(left);
+            }
+            if (right < size && compare(time(right), meta(right), st, sm) < 0) {
+                smallest = right;
+                st = time(right);
+                sm = meta(right);
+            }
+            if (smallest == idx) break;
+            write(idx, st, sm);
+            idx = smallest;
+        }
+        write(idx, t, m);
+    }
+
+    /**
+     * Sims des événements en attente, par identifiant, avec leur nombre d'événements
+     * (adressage ouvert, sondage linéaire, retrait par décalage arrière).
+     */
+    private static final class SimTable {
+        private int[] keys = new int[64];
+        private Sim[] values = new Sim[64];
+        private int[] refs = new int[64];
+        private int shift = 32 - 6;                         // log2(keys.length) bits de poids fort
+        private int count;
+
+        SimTable() {
+            Arrays.fill(keys, NO_SIM);
+        }
+
+        private int slot(int id) {
+            return (id * 0x9E3779B9) >>> shift;
+        }
+
+        void retain(Sim s) {
+            if (s == null) return;
+            int id = s.getIdent();
+            int i = slot(id);
+            while (keys[i] != NO_SIM) {
+                if (keys[i] == id) {
+                    refs[i]++;
+                    return;
+                }
+                i = (i + 1) & (keys.length - 1);
+            }
+            keys[i] = id;
+            values[i] = s;
+            refs[i] = 1;
+            if (++count * 4 > keys.length * 3) rehash(keys.length * 2);     // charge ≤ 3/4
+        }
+
+        Sim get(int id) {
+            for (int i = slot(id); keys[i] != NO_SIM; i = (i + 1) & (keys.length - 1)) {
+                if (keys[i] == id) return values[i];
+            }
+            throw new IllegalStateException("sim " + id + " not in the event queue");
+        }
+
+        void release(Sim s) {
+            if (s == null) return;
+            int id = s.getIdent();
+            int i = slot(id);
+            while (keys[i] != id) i = (i + 1) & (keys.length - 1);
+            if (--refs[i] > 0) return;
+            count--;
+            // décalage arrière : les entrées suivantes du groupe remontent vers leur case idéale
+            int mask = keys.length - 1;
+            int hole = i;
+            for (int j = (i + 1) & mask; keys[j] != NO_SIM; j = (j + 1) & mask) {
+                int ideal = slot(keys[j]);
+                if (((j - ideal) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    refs[hole] = refs[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = NO_SIM;
+            values[hole] = null;
+            refs[hole] = 0;
+        }
+
+        private void rehash(int n) {
+            int[] oldKeys = keys;
+            Sim[] oldValues = values;
+            int[] oldRefs = refs;
+            keys = new int[n];
+            Arrays.fill(keys, NO_SIM);
+            values = new Sim[n];
+            refs = new int[n];
+            shift = 32 - Integer.numberOfTrailingZeros(n);
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (oldKeys[k] == NO_SIM) continue;
+                int i = slot(oldKeys[k]);
+                while (keys[i] != NO_SIM) i = (i + 1) & (n - 1);
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+                refs[i] = oldRefs[k];
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@ import java.util.Objects;
 public class PriorityQueueO<T> {
 
     private final ArrayList<T> heap = new ArrayList<>();
+    private int capacity;                     // capacité du tableau sous-jacent, suivie explicitement
     private final Comparator<? super T> comp;
 
     /* ---------- Constructeurs ---------- */
@@ -42,6 +43,7 @@ public class PriorityQueueO<T> {
     /** Ajout unique — coût <em>logarithmique</em>. */
     public void add(T element) {
         Objects.requireNonNull(element, "element must not be null");
+        if (heap.size() == capacity) grow(capacity + 1);
         heap.add(element);
         siftUp(heap.size() - 1);
     }
@@ -52,6 +54,7 @@ public class PriorityQueueO<T> {
      */
     public void addAll(Collection<? extends T> coll) {
         Objects.requireNonNull(coll, "collection must not be null");
+        if (heap.size() + coll.size() > capacity) grow(heap.size() + coll.size());
         for (T e : coll) {
             Objects.requireNonNull(e, "element must not be null");
             heap.add(e);
@@ -79,7 +82,12 @@ public class PriorityQueueO<T> {
         return heap.isEmpty() ? null : heap.get(0);
     }
 
-    /** Supprime la première occurrence de {@code element}. */
+    /**
+     * Supprime la première occurrence de {@code element} — O(n) (recherche linéaire).
+     * <p>API historique : le {@link Simulator} n'annule jamais un événement planifié et
+     * n'appelle pas cette méthode ; {@link OffHeapEventQueue} ne la propose pas.
+     * À éviter sur une grande file.</p>
+     */
     public boolean remove(T element) {
         Objects.requireNonNull(element, "element must not be null");
         int idx = heap.indexOf(element);
@@ -102,6 +110,22 @@ public class PriorityQueueO<T> {
 
     /* ---------- Implémentation interne ---------- */
 
+    /** Agrandit le tableau (facteur 1,5 comme ArrayList) et le signale à JFR. */
+    private void grow(int minCapacity) {
+        FlightEvents.QueueResize jfr = new FlightEvents.QueueResize();
+        jfr.begin();
+        int old = capacity;
+        capacity = Math.max(minCapacity, Math.max(16, old + (old >> 1)));
+        heap.ensureCapacity(capacity);
+        jfr.end();
+        if (jfr.shouldCommit()) {
+            jfr.oldCapacity = old;
+            jfr.newCapacity = capacity;
+            jfr.size = heap.size();
+            jfr.commit();
+        }
+    }
+
     private void siftUp(int idx) {
         while (idx > 0) {
             int parent = (idx - 1) >>> 1;
@@ -0,0 +1,105 @@
+package pedigree;
+
+import java.util.Arrays;
+
+/**
+ * ReproductionSchedule : tas binaire dédié aux prochaines tentatives de reproduction.
+ * <p>Chaque mère fertile n'y a qu'une entrée, sa prochaine tentative ; les suivantes
+ * sont tirées paresseusement (processus de Poisson) au moment de la tentative. Le
+ * sommet peut être « en vol » : le simulateur l'a servi comme événement et, à la
+ * tentative, soit remplace sa date (un seul tamisage), soit le retire si la mère
+ * est morte ou sort de l'âge de reproduction avant la tentative suivante.</p>
+ */
+final class ReproductionSchedule {
+
+    private Sim[] mothers = new Sim[16];
+    private double[] times = new double[16];
+    private int size;
+    private long operations;
+
+    int size()          { return size; }
+    boolean isEmpty()   { return size == 0; }
+
+    /** Nombre d'opérations de file (ajout, remplacement, retrait) depuis la création. */
+    long operations()   { return operations; }
+
+    double peekTime()   { return size == 0 ? Double.POSITIVE_INFINITY : times[0]; }
+    Sim peekMother()    { return size == 0 ? null : mothers[0]; }
+
+    /** Entrée {@code i} dans l'ordre du tas (sérialisation de l'état). */
+    Sim motherAt(int i)  { return mothers[i]; }
+    double timeAt(int i) { return times[i]; }
+
+    void add(Sim mother, double time) {
+        operations++;
+        if (size == mothers.length) {
+            mothers = Arrays.copyOf(mothers, size * 2);
+            times = Arrays.copyOf(times, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {                                    // tamisage vers le haut
+            int parent = (i - 1) >>> 1;
+            if (times[parent] <= time) break;
+            mothers[i] = mothers[parent];
+            times[i] = times[parent];
+            i = parent;
+        }
+        mothers[i] = mother;
+        times[i] = time;
+    }
+
+    /** Ajout en bloc de {@code n} mères, suivi d'un heapify O(size + n). */
+    void addAll(Sim[] m, double[] t, int n) {
+        operations += n;
+        int total = size + n;
+        if (total > mothers.length) {
+            int capacity = Math.max(total, size * 2);
+            mothers = Arrays.copyOf(mothers, capacity);
+            times = Arrays.copyOf(times, capacity);
+        }
+        System.arraycopy(m, 0, mothers, size, n);
+        System.arraycopy(t, 0, times, size, n);
+        size = total;
+        for (int i = (size - 2) >> 1; i >= 0; i--) {
+            siftDown(i, mothers[i], times[i]);
+        }
+    }
+
+    /** Remplace la date du sommet (tentative suivante de la même mère). */
+    void replaceTop(double time) {
+        operations++;
+        siftDown(0, mothers[0], time);
+    }
+
+    /** Retire le sommet. */
+    void pollTop() {
+        operations++;
+        int last = --size;
+        Sim m = mothers[last];
+        double t = times[last];
+        mothers[last] = null;
+        if (last > 0) siftDown(0, m, t);
+    }
+
+    /** Vide l'échéancier (ses entrées ont été lues par {@link #motherAt} et {@link #timeAt}). */
+    void clear() {
+        operations += size;
+        Arrays.fill(mothers, 0, size, null);
+        size = 0;
+    }
+
+    private void siftDown(int i, Sim m, double t) {
+        int half = size >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            int right = child + 1;
+            if (right < size && times[right] < times[child]) child = right;
+            if (t <= times[child]) break;
+            mothers[i] = mothers[child];
+            times[i] = times[child];
+            i = child;
+        }
+        mothers[i] = m;
+        times[i] = t;
+    }
+}
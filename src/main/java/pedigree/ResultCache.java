@@ -0,0 +1,326 @@
+package pedigree;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.net.URISyntaxException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * ResultCache : cache disque, adressé par contenu, des résultats de {@link Coalescence#main}.
+ * <p>La clé est le SHA-256 de tous les paramètres de la simulation (fondateurs, horizon,
+ * graine, {@link Simulator#parameters}) et de la version du code, c.-à-d. le contenu
+ * des fichiers {@code .class} du simulateur, classes imbriquées et anonymes comprises
+ * ({@code Simulator$Event}…) : recompiler une modification invalide le cache. Deux
+ * sortes d'entrées :</p>
+ * <ul>
+ *   <li>{@code <clé>.result} : échantillons de population et courbes de coalescence,
+ *       en binaire, lus par projection mémoire ({@link FileChannel#map}) ;</li>
+ *   <li>{@code <clé>@<temps>.state} : état complet du simulateur à la fin d'une exécution
+ *       (clé sans l'horizon), point de départ d'une exécution plus longue.</li>
+ * </ul>
+ * <p>Chaque lecture réussie rafraîchit la date de modification du fichier ; au-delà de
+ * {@code maxBytes}, les entrées les moins récemment utilisées sont supprimées (LRU par
+ * mtime). Les écritures passent par un fichier temporaire renommé atomiquement : plusieurs
+ * processus peuvent partager le répertoire. Une entrée illisible est supprimée et
+ * traitée comme absente.</p>
+ */
+public final class ResultCache {
+
+    private static final int RESULT_MAGIC = 0x50524531;        // "PRE1"
+    private static final String RESULT = ".result";
+    private static final String STATE = ".state";
+    private static final long DEFAULT_MAX_MB = 1024;
+
+    /** Classes dont le contenu (avec celui de leurs classes internes) détermine le résultat d'une simulation. */
+    private static final Class<?>[] CODE = {
+        Simulator.class, Sim.class, AgeModel.class, Coalescence.class, PriorityQueueO.class,
+        SimSet.class, ReproductionSchedule.class, Demography.class, OffHeapEventQueue.class
+    };
+
+    /** Version du code, calculée au premier calcul de clé : une exécution sans cache ne lit pas les classes. */
+    private static final class CodeVersion {
+        static final String VALUE = codeVersion();
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    private final boolean states;
+
+    /**
+     * @param states si faux, ni écriture ni reprise d'états (seulement les résultats)
+     */
+    public ResultCache(Path dir, long maxBytes, boolean states) throws IOException {
+        if (maxBytes <= 0) throw new IllegalArgumentException("cache size must be positive");
+        this.dir = Files.createDirectories(dir);
+        this.maxBytes = maxBytes;
+        this.states = states;
+    }
+
+    public ResultCache(Path dir, long maxBytes) throws IOException {
+        this(dir, maxBytes, true);
+    }
+
+    /**
+     * Cache configuré par {@code -Dpedigree.cache=<répertoire>} ({@code -Dpedigree.cache.maxMb},
+     * 1024 par défaut ; {@code -Dpedigree.cache.states=false} pour ne garder que les
+     * résultats) ; {@code null} sinon.
+     */
+    public static ResultCache fromSystemProperties() throws IOException {
+        String dir = System.getProperty("pedigree.cache");
+        if (dir == null || dir.isBlank()) return null;
+        long mb = Long.parseLong(System.getProperty("pedigree.cache.maxMb", String.valueOf(DEFAULT_MAX_MB)));
+        boolean states = Boolean.parseBoolean(System.getProperty("pedigree.cache.states", "true"));
+        return new ResultCache(Path.of(dir), mb << 20, states);
+    }
+
+    /* ===================== Clés ===================== */
+
+    /** Clé des résultats d'une simulation complète. */
+    public static String resultKey(int founders, double horizon, long seed) {
+        return digest("result\n" + configuration(founders, seed) + "\nhorizon=" + horizon);
+    }
+
+    /** Clé des états d'une simulation, indépendante de l'horizon. */
+    public static String stateKey(int founders, long seed) {
+        return digest("state\n" + configuration(founders, seed));
+    }
+
+    private static String configuration(int founders, long seed) {
+        return "code=" + CodeVersion.VALUE + "\n" + Simulator.parameters(false)
+                + "\nfounders=" + founders + "\nseed=" + seed;
+    }
+
+    private static String digest(String text) {
+        return HexFormat.of().formatHex(sha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 unavailable", ex);
+        }
+    }
+
+    /** Version du code chargé : répertoire de classes ou jar d'où vient {@code ResultCache}. */
+    private static String codeVersion() {
+        CodeSource source = ResultCache.class.getProtectionDomain().getCodeSource();
+        if (source == null) throw new IllegalStateException("code source unknown");
+        try {
+            Path location = Path.of(source.getLocation().toURI());
+            if (Files.isDirectory(location)) return codeVersion(location);
+            try (FileSystem jar = FileSystems.newFileSystem(location)) {
+                return codeVersion(jar.getPath("/"));
+            }
+        } catch (IOException | URISyntaxException ex) {
+            throw new IllegalStateException("cannot read class files from " + source.getLocation(), ex);
+        }
+    }
+
+    /**
+     * SHA-256 des fichiers {@code X.class} et {@code X$*.class} du paquetage sous
+     * {@code root}, pour chaque classe X de {@link #CODE}, par ordre de nom.
+     */
+    static String codeVersion(Path root) throws IOException {
+        Path pkg = root.resolve(ResultCache.class.getPackageName().replace('.', '/'));
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(pkg, "*.class")) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                for (Class<?> c : CODE) {
+                    if (name.equals(c.getSimpleName() + ".class") || name.startsWith(c.getSimpleName() + "$")) {
+                        files.add(p);
+                        break;
+                    }
+                }
+            }
+        }
+        for (Class<?> c : CODE) {
+            if (!Files.exists(pkg.resolve(c.getSimpleName() + ".class"))) {
+                throw new IllegalStateException("class file not found: " + c.getName());
+            }
+        }
+        files.sort(Comparator.comparing(p -> p.getFileName().toString()));
+        MessageDigest md = sha256();
+        for (Path p : files) {
+            md.update(p.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            md.update(Files.readAllBytes(p));
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /* ===================== Résultats ===================== */
+
+    /** Résultats en cache pour {@code key}, ou {@code null}. */
+    public Coalescence.Result get(String key) throws IOException {
+        Path file = dir.resolve(key + RESULT);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt() != RESULT_MAGIC) throw new IOException("not a cached result");
+            List<Simulator.PointPop> pop = new ArrayList<>();
+            for (int i = buf.getInt(); i > 0; i--) pop.add(new Simulator.PointPop(buf.getDouble(), buf.getInt()));
+            List<Coalescence.Point> pat = readPoints(buf);
+            List<Coalescence.Point> mat = readPoints(buf);
+            touch(file);
+            return new Coalescence.Result(pop, pat, mat);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(file);                     // entrée corrompue : simple absence
+            return null;
+        }
+    }
+
+    private static List<Coalescence.Point> readPoints(MappedByteBuffer buf) {
+        int n = buf.getInt();
+        List<Coalescence.Point> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) points.add(new Coalescence.Point(buf.getDouble(), buf.getInt()));
+        return points;
+    }
+
+    /** Enregistre {@code result} sous {@code key}, puis applique la limite de taille. */
+    public void put(String key, Coalescence.Result result) throws IOException {
+        Path tmp = Files.createTempFile(dir, key, ".part");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(RESULT_MAGIC);
+            out.writeInt(result.popSamples().size());
+            for (Simulator.PointPop p : result.popSamples()) {
+                out.writeDouble(p.time());
+                out.writeInt(p.pop());
+            }
+            writePoints(out, result.paternal());
+            writePoints(out, result.maternal());
+        }
+        commit(tmp, dir.resolve(key + RESULT));
+    }
+
+    private static void writePoints(DataOutputStream out, List<Coalescence.Point> points) throws IOException {
+        out.writeInt(points.size());
+        for (Coalescence.Point p : points) {
+            out.writeDouble(p.time());
+            out.writeInt(p.lineages());
+        }
+    }
+
+    /* ===================== États ===================== */
+
+    /**
+     * Reprend l'état en cache le plus avancé de {@code key} dont la date ne dépasse pas
+     * {@code horizon}, ou {@code null}.
+     */
+    public Simulator getState(String key, double horizon) throws IOException {
+        if (!states) return null;
+        Path best = null;
+        double bestTime = Double.NEGATIVE_INFINITY;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, key + "@*" + STATE)) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                double t;
+                try {
+                    t = Double.parseDouble(name.substring(key.length() + 1, name.length() - STATE.length()));
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+                if (t <= horizon && t > bestTime) {
+                    best = f;
+                    bestTime = t;
+                }
+            }
+        }
+        if (best == null) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(best), 1 << 16))) {
+            Simulator sim = Simulator.readState(in, horizon);
+            touch(best);
+            return sim;
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(best);
+            return null;
+        }
+    }
+
+    /** Enregistre l'état de {@code sim} à sa date courante, puis applique la limite de taille. */
+    public void putState(String key, Simulator sim) throws IOException {
+        if (!states) return;
+        Path tmp = Files.createTempFile(dir, key, ".part");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            sim.writeState(out);
+        }
+        commit(tmp, dir.resolve(key + "@" + sim.getTime() + STATE));
+    }
+
+    /* ===================== Stockage ===================== */
+
+    private void commit(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        evict();
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ex) {
+            // entrée évincée entre-temps par un autre processus : sans conséquence
+        }
+    }
+
+    /** Supprime les entrées les moins récemment utilisées jusqu'à revenir sous {@code maxBytes}. */
+    void evict() throws IOException {
+        record Entry(Path path, long size, long mtime) {}
+        List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*{" + RESULT + "," + STATE + "}")) {
+            for (Path f : files) {
+                try {
+                    Entry e = new Entry(f, Files.size(f), Files.getLastModifiedTime(f).toMillis());
+                    entries.add(e);
+                    total += e.size();
+                } catch (NoSuchFileException ex) {
+                    // supprimée par un autre processus
+                }
+            }
+        }
+        if (total <= maxBytes) return;
+        entries.sort(Comparator.comparingLong(Entry::mtime));
+        for (Entry e : entries) {
+            if (total <= maxBytes) break;
+            Files.deleteIfExists(e.path());
+            total -= e.size();
+        }
+    }
+
+    /** Taille totale des entrées, en octets. */
+    public long size() throws IOException {
+        long total = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*{" + RESULT + "," + STATE + "}")) {
+            for (Path f : files) total += Files.size(f);
+        }
+        return total;
+    }
+}
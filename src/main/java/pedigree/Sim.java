@@ -26,9 +26,10 @@ package pedigree;
 
 
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Sim implements Comparable<Sim>{
-    private static int SIM_COUNT=0;
+    private static final AtomicInteger SIM_COUNT = new AtomicInteger();
     
     public static double MIN_MATING_AGE_F = 16.0; 
     public static double MIN_MATING_AGE_M = 16.0; 
@@ -55,13 +56,15 @@ public class Sim implements Comparable<Sim>{
     };
 
     private final int sim_ident;
-    private double birthtime;
+    // identité, naissance et parents sont immuables : lisibles depuis un autre thread
+    // (voir SimulatorSnapshots) ; mort et partenaire ne le sont pas
+    private final double birthtime;
     private double deathtime;
-    private Sim mother;
-    private Sim father;
+    private final Sim mother;
+    private final Sim father;
     private Sim mate;
     
-    private Sex sex;
+    private final Sex sex;
 
     
     
@@ -82,7 +85,7 @@ public class Sim implements Comparable<Sim>{
         
         this.sex = sex;
         
-        this.sim_ident = SIM_COUNT++;
+        this.sim_ident = SIM_COUNT.getAndIncrement();
     }
     
     /**
@@ -129,6 +132,11 @@ public class Sim implements Comparable<Sim>{
         return sex;
     }
     
+    /** Identifiant unique (ordre de création). */
+    public int getIdent(){
+        return sim_ident;
+    }
+    
     public double getBirthTime(){
         return birthtime;
     }
@@ -171,7 +179,7 @@ public class Sim implements Comparable<Sim>{
         return sim==null?"":"sim."+sim.sim_ident+"/"+sim.sex;
     }
     
-    static int simCount() {return SIM_COUNT;}    
+    static int simCount() {return SIM_COUNT.get();}    
     
     @Override
     public String toString(){
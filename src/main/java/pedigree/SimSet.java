@@ -0,0 +1,104 @@
+package pedigree;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * SimSet : ensemble de Sims à accès aléatoire (égalité par identité).
+ * <ul>
+ *   <li>ajout, retrait, tirage uniforme : O(1)</li>
+ * </ul>
+ * <p>Les éléments sont rangés dans un tableau dense ; un retrait déplace le dernier
+ * élément dans la case libérée. L'ordre d'itération est donc arbitraire.</p>
+ * <p>Avec un {@link TraceRecorder}, chaque ajout et retrait effectif, et chaque tirage,
+ * est journalisé : un ajout déjà présent ou un retrait absent ne l'est pas.</p>
+ */
+final class SimSet extends AbstractCollection<Sim> {
+
+    private Sim[] items = new Sim[16];
+    private int size;
+    private IdentityHashMap<Sim, Integer> index = new IdentityHashMap<>();
+    private TraceRecorder trace;
+    private int traceSet;
+
+    /** Journalise les opérations dans {@code trace} sous le numéro {@code set} ({@code null} : arrêt). */
+    void setTrace(TraceRecorder trace, int set) {
+        this.trace = trace;
+        this.traceSet = set;
+    }
+
+    @Override
+    public boolean add(Sim s) {
+        if (index.putIfAbsent(s, size) != null) return false;
+        if (size == items.length) items = Arrays.copyOf(items, size * 2);
+        items[size++] = s;
+        if (trace != null) trace.setAdd(traceSet, s);
+        return true;
+    }
+
+    /** Prépare l'ensemble à contenir {@code n} éléments sans agrandissement successif. */
+    void ensureCapacity(int n) {
+        if (n <= items.length) return;
+        items = Arrays.copyOf(items, n);
+        IdentityHashMap<Sim, Integer> larger = new IdentityHashMap<>(n);
+        larger.putAll(index);
+        index = larger;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Integer i = index.remove(o);
+        if (i == null) return false;
+        if (trace != null) trace.setRemove(traceSet, (Sim) o);
+        Sim last = items[--size];
+        items[size] = null;
+        if (i < size) {
+            items[i] = last;
+            index.put(last, i);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return index.containsKey(o);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Élément tiré uniformément, ou null si l'ensemble est vide. */
+    Sim random(Random r) {
+        if (trace != null) trace.setRandom(traceSet);
+        return size == 0 ? null : items[r.nextInt(size)];
+    }
+
+    @Override
+    public Sim[] toArray() {
+        return Arrays.copyOf(items, size);
+    }
+
+    @Override
+    public Iterator<Sim> iterator() {
+        return new Iterator<>() {
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public Sim next() {
+                if (i >= size) throw new NoSuchElementException();
+                return items[i++];
+            }
+        };
+    }
+}
@@ -1,54 +1,129 @@
 package pedigree;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 import java.util.Random;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
 
 import pedigree.Sim.Sex;
 
 public class Simulator {
-    private PriorityQueueO<Event> events;
-    private PriorityQueueO<Sim> males;
-    private Set<Sim> availableMales;
-    private PriorityQueueO<Sim> females;
+    private EventStore events;
+    private final SimSet males;
+    private final SimSet availableMales;
+    private final SimSet females;
     private final AgeModel model;
     private double calendarTime;
-    private final Random rnd;
+    private Random rnd;                       // remplacé seulement par readState
     private final double fidelity;
     private final double span;
     private final double reproductionRate;
     private final double horizon;
+    private Predicate<Sim> disperser;
+    private final boolean lazy;
+    private final ReproductionSchedule reproductions;
+    private boolean inFlight;
+    private long queueOperations;
+    private long births;
+    private TraceRecorder trace;
+
+    private static final Observer[] NO_OBSERVERS = new Observer[0];
+    private static final int WALL_CLOCK_CHECK_MASK = 4095;  // horloge lue tous les 4096 événements
+    private Observer[] eventObservers = NO_OBSERVERS;
+    private Observer[] periodicObservers = NO_OBSERVERS;
+    private double[] periods = new double[0];
+    private double[] nextPeriods = new double[0];
+    private double nextPeriodic = Double.POSITIVE_INFINITY;
+    private int populationCap = Integer.MAX_VALUE;
+    private long wallClockBudgetNanos = Long.MAX_VALUE;
+    private boolean stopOnExtinction;
 
     private double nextSample;
     private final List<PointPop> popSamples;
+    private final Demography demography;
+    private final List<Demography.Sample> demographicSamples;
+    private static final double SAMPLE_PERIOD = 100.0;
+    private static final int FOUNDER_CHUNK = 1 << 16;
+    private static final int PYRAMID_BUCKET_YEARS = 5;
 
     private static final double DEFAULT_FIDELITY = 0.1;
     private static final double DEFAULT_STABLE_RATE = 2.0;
+    private static final int STATE_MAGIC = 0x50535431;       // "PST1"
+    /** File d'événements hors du tas par défaut : {@code -Dpedigree.offheap=true}. */
+    private static final boolean OFF_HEAP = Boolean.getBoolean("pedigree.offheap");
+
+    /**
+     * File des événements en attente : {@link PriorityQueueO} sur le tas Java, ou
+     * {@link OffHeapEventQueue} hors du tas. Les deux rendent les événements dans le même ordre.
+     */
+    interface EventStore {
+        void add(Event e);
+        /** Ajout en bloc ; une liste déjà en ordre de tas est conservée telle quelle. */
+        void addAll(List<Event> events);
+        Event poll();
+        /** Date du prochain événement, ou +∞ si la file est vide. */
+        double peekTime();
+        int size();
+        boolean isEmpty();
+        /** Copie des événements, dans l'ordre du tas. */
+        List<Event> toList();
+    }
+
+    /** {@link EventStore} sur le tas Java. */
+    private static final class HeapEvents implements EventStore {
+        private final PriorityQueueO<Event> heap = new PriorityQueueO<>(new EventComparator());
+
+        @Override public void add(Event e)               { heap.add(e); }
+        @Override public void addAll(List<Event> events) { heap.addAll(events); }
+        @Override public Event poll()                    { return heap.poll(); }
+        @Override public int size()                      { return heap.size(); }
+        @Override public boolean isEmpty()               { return heap.isEmpty(); }
+        @Override public List<Event> toList()            { return heap.toList(); }
 
-    static class EventComparator implements Comparator<Event>{
         @Override
-        public int compare(Event o1, Event o2) {
-            return Double.compare(o1.getTime(),o2.getTime());
+        public double peekTime() {
+            Event e = heap.peek();
+            return e == null ? Double.POSITIVE_INFINITY : e.getTime();
         }
     }
 
-    static class PopComparator implements Comparator<Sim>{
+    static class EventComparator implements Comparator<Event>{
         @Override
-        public int compare(Sim o1, Sim o2) {
-            return Double.compare(o1.getBirthTime(),o2.getBirthTime());
+        public int compare(Event o1, Event o2) {
+            int c = Double.compare(o1.getTime(),o2.getTime());
+            // à date égale, Sample passe en dernier (ordre de l'énumération)
+            return c != 0 ? c : o1.getEvent().compareTo(o2.getEvent());
         }
     }
-    public Simulator(long seed, double horizon) {
-        events = new PriorityQueueO<>(new EventComparator());
-        males = new PriorityQueueO<>(new PopComparator());
-        availableMales = new TreeSet<>(new PopComparator());
-        females = new PriorityQueueO<>(new PopComparator());
+
+    /**
+     * @param lazyReproduction si vrai, seule la prochaine tentative de chaque mère est
+     *        en attente, dans un échéancier dédié ({@link ReproductionSchedule})
+     */
+    public Simulator(long seed, double horizon, boolean lazyReproduction) {
+        events = newEventStore(OFF_HEAP);
+        males = new SimSet();
+        availableMales = new SimSet();
+        females = new SimSet();
         model = new AgeModel();
         span = model.expectedParenthoodSpan(Sim.MIN_MATING_AGE_F, Sim.MAX_MATING_AGE_F);
         fidelity = DEFAULT_FIDELITY;
@@ -58,6 +133,17 @@ public class Simulator {
         this.horizon = horizon;
         nextSample = 0.0;
         popSamples = new ArrayList<>();
+        demography = new Demography();
+        demographicSamples = new ArrayList<>();
+        lazy = lazyReproduction;
+        reproductions = lazy ? new ReproductionSchedule() : null;
+        if (horizon >= 0.0) {
+            schedule(new Event(Events.Sample, null, nextSample));
+        }
+    }
+
+    public Simulator(long seed, double horizon) {
+        this(seed, horizon, false);
     }
 
     public Simulator(long seed) {
@@ -80,11 +166,37 @@ public class Simulator {
         return males.size() + females.size();
     }
 
-    public enum Events {Birth, Death, Reproduction, EntersMatingAge, ExitsMatingAge};
+    public int getMaleCount()          { return males.size(); }
+    public int getFemaleCount()        { return females.size(); }
+    public int getAvailableMaleCount() { return availableMales.size(); }
+
+    /** Événements en attente (y compris l'échéancier paresseux). */
+    public int getQueueSize() {
+        return events.size() + (lazy ? reproductions.size() : 0);
+    }
+
+    public double getHorizon() {
+        return horizon;
+    }
+
+    public enum Events {Birth, Death, Reproduction, EntersMatingAge, ExitsMatingAge, Sample};
 
     /** Point de suivi de la population vivante. */
     public record PointPop(double time, int pop) {}
 
+    /** Raison de l'arrêt de {@link #run(double)}. */
+    public enum StopReason {HORIZON, NO_EVENTS, EXTINCT, POPULATION_CAP, WALL_CLOCK};
+
+    /**
+     * Observateur du moteur {@link #run(double)}. Enregistré avec
+     * {@link #addEventObserver} il est appelé après chaque événement ; avec
+     * {@link #addPeriodicObserver} chaque fois que le temps simulé franchit une période.
+     */
+    public interface Observer {
+        default void onEvent(Simulator sim, Event e) {}
+        default void onPeriod(Simulator sim, double time) {}
+    }
+
 
 
 
@@ -126,16 +238,297 @@ public class Simulator {
 
 
     public Event getEvent() {
+        if (lazy) {
+            settle();
+            if (!reproductions.isEmpty() && reproductions.peekTime() < nextQueuedTime()) {
+                inFlight = true;                 // reste au sommet jusqu'à la tentative
+                return new Event(Events.Reproduction, reproductions.peekMother(), reproductions.peekTime());
+            }
+        }
+        queueOperations++;
+        if (trace != null) trace.poll();
         return events.poll();
     }
 
     public boolean hasEvents() {
+        if (lazy) {
+            settle();
+            return !events.isEmpty() || !reproductions.isEmpty();
+        }
         return !events.isEmpty();
     }
 
+    /** Date du prochain événement, ou +∞ si la file est vide. */
+    public double nextEventTime() {
+        if (lazy) {
+            settle();
+            return Math.min(nextQueuedTime(), reproductions.peekTime());
+        }
+        return nextQueuedTime();
+    }
+
+    /* ---------- Moteur d'exécution ---------- */
+
+    /** Exécute les événements jusqu'à l'horizon du constructeur. */
+    public StopReason run() {
+        return run(horizon);
+    }
+
+    /**
+     * Exécute les événements de date ≤ {@code until}, ou jusqu'à une condition d'arrêt
+     * (extinction, plafond de population, budget d'horloge). Si l'arrêt vient de la
+     * date ou de l'épuisement des événements, l'horloge est placée à {@code until} ;
+     * avec {@code until} = +∞, elle reste à la date du dernier événement.
+     */
+    public StopReason run(double until) {
+        final long deadline = wallClockBudgetNanos == Long.MAX_VALUE
+                ? Long.MAX_VALUE : System.nanoTime() + wallClockBudgetNanos;
+        long count = 0;
+        while (true) {
+            double t = nextEventTime();
+            if (t == Double.POSITIVE_INFINITY) {
+                // file vide : observateurs périodiques et horloge jusqu'à la dernière date finie
+                double last = until == Double.POSITIVE_INFINITY ? calendarTime : until;
+                if (last >= nextPeriodic) firePeriodic(last);
+                calendarTime = Math.max(calendarTime, last);
+                return StopReason.NO_EVENTS;
+            }
+            if (t > until) {
+                if (until >= nextPeriodic) firePeriodic(until);
+                calendarTime = Math.max(calendarTime, until);
+                return StopReason.HORIZON;
+            }
+            if (t >= nextPeriodic) firePeriodic(t);
+            Event e = getEvent();
+            calendarTime = t;
+            dispatch(e);
+            if (eventObservers.length != 0) {
+                for (Observer o : eventObservers) o.onEvent(this, e);
+            }
+            switch (e.getEvent()) {
+                case Death -> {
+                    if (stopOnExtinction && getPopulation() == 0) return StopReason.EXTINCT;
+                }
+                case Birth, Reproduction -> {
+                    if (getPopulation() > populationCap) return StopReason.POPULATION_CAP;
+                }
+                default -> {}
+            }
+            if ((++count & WALL_CLOCK_CHECK_MASK) == 0 && deadline != Long.MAX_VALUE
+                    && System.nanoTime() - deadline > 0) {
+                return StopReason.WALL_CLOCK;
+            }
+        }
+    }
+
+    /** Appelle les observateurs périodiques dont la période échoit avant {@code t}. */
+    private void firePeriodic(double t) {
+        double next = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < periodicObservers.length; i++) {
+            while (nextPeriods[i] <= t) {
+                periodicObservers[i].onPeriod(this, nextPeriods[i]);
+                nextPeriods[i] += periods[i];
+            }
+            next = Math.min(next, nextPeriods[i]);
+        }
+        nextPeriodic = next;
+    }
+
+    /** Observateur appelé après chaque événement de {@link #run(double)}. */
+    public void addEventObserver(Observer o) {
+        eventObservers = append(eventObservers, o);
+    }
+
+    /** Observateur appelé à chaque multiple de {@code period} (en années simulées). */
+    public void addPeriodicObserver(Observer o, double period) {
+        if (!(period > 0.0)) throw new IllegalArgumentException("period must be positive");
+        periodicObservers = append(periodicObservers, o);
+        periods = Arrays.copyOf(periods, periods.length + 1);
+        nextPeriods = Arrays.copyOf(nextPeriods, nextPeriods.length + 1);
+        periods[periods.length - 1] = period;
+        double first = (Math.floor(calendarTime / period) + 1.0) * period;
+        nextPeriods[nextPeriods.length - 1] = first;
+        nextPeriodic = Math.min(nextPeriodic, first);
+    }
+
+    private static Observer[] append(Observer[] array, Observer o) {
+        Observer[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = Objects.requireNonNull(o, "observer must not be null");
+        return copy;
+    }
+
+    /**
+     * Journalise désormais les opérations sur la file et les ensembles de Sims dans
+     * {@code trace} ({@code null} : arrêt). Le contenu courant de la file et des ensembles
+     * est d'abord journalisé, pour que la trace se rejoue seule. Le journal ne consomme
+     * pas de hasard : la simulation est inchangée.
+     */
+    public void setTrace(TraceRecorder trace) {
+        this.trace = trace;
+        if (trace != null) {
+            if (!events.isEmpty()) trace.addAll(events.toList());
+            for (Sim s : males) trace.setAdd(TraceRecorder.MALES, s);
+            for (Sim s : females) trace.setAdd(TraceRecorder.FEMALES, s);
+            for (Sim s : availableMales) trace.setAdd(TraceRecorder.AVAILABLE_MALES, s);
+        }
+        males.setTrace(trace, TraceRecorder.MALES);
+        females.setTrace(trace, TraceRecorder.FEMALES);
+        availableMales.setTrace(trace, TraceRecorder.AVAILABLE_MALES);
+    }
+
+    /** Arrête {@link #run(double)} dès que la population dépasse {@code cap}. */
+    public void setPopulationCap(int cap) {
+        populationCap = cap;
+    }
+
+    /** Arrête {@link #run(double)} après environ {@code millis} ms de temps réel (0 : aucun budget). */
+    public void setWallClockBudget(long millis) {
+        wallClockBudgetNanos = millis > 0 ? TimeUnit.MILLISECONDS.toNanos(millis) : Long.MAX_VALUE;
+    }
+
+    /** Arrête {@link #run(double)} quand le dernier Sim vivant meurt. */
+    public void setStopOnExtinction(boolean stop) {
+        stopOnExtinction = stop;
+    }
+
+    private double nextQueuedTime() {
+        return events.peekTime();
+    }
+
+    private EventStore newEventStore(boolean offHeap) {
+        return offHeap ? new OffHeapEventQueue(this) : new HeapEvents();
+    }
+
+    /**
+     * Range la file d'événements hors du tas Java ({@link OffHeapEventQueue}) ou dans un
+     * {@link PriorityQueueO}. Les événements en attente sont transférés dans l'ordre du
+     * tas : la suite de la simulation est la même.
+     */
+    public void setOffHeapEvents(boolean offHeap) {
+        if (offHeap == events instanceof OffHeapEventQueue) return;
+        List<Event> pending = events.toList();
+        events = newEventStore(offHeap);
+        events.addAll(pending);
+    }
+
+    /** Vrai si la file d'événements est hors du tas Java. */
+    public boolean hasOffHeapEvents() {
+        return events instanceof OffHeapEventQueue;
+    }
+
+    private void schedule(Event e) {
+        queueOperations++;
+        if (trace != null) trace.add(e);
+        events.add(e);
+    }
+
+    /** Sommet servi mais jamais tenté (ex. collecté par un moteur à fenêtres) : on le retire. */
+    private void settle() {
+        if (inFlight) {
+            inFlight = false;
+            reproductions.pollTop();
+        }
+    }
+
+    /** Après une tentative paresseuse : date suivante, ou -1 si la mère n'en a plus. */
+    private void reschedule(Sim mother, double nextTime) {
+        if (inFlight && reproductions.peekMother() == mother) {
+            inFlight = false;
+            if (nextTime > 0) reproductions.replaceTop(nextTime);
+            else reproductions.pollTop();
+        } else if (nextTime > 0) {
+            reproductions.add(mother, nextTime);
+        }
+    }
+
+    /** Nombre d'opérations sur les files d'événements (ajouts et retraits). */
+    public long getQueueOperations() {
+        return queueOperations + (lazy ? reproductions.operations() : 0L);
+    }
+
+    /** Nombre de naissances (hors fondateurs). */
+    public long getBirths() {
+        return births;
+    }
+
+    /** Exécute l'événement {@code e} (l'horloge doit déjà être à {@code e.getTime()}). */
+    public void dispatch(Event e) {
+        switch (e.getEvent()) {
+            case Birth          -> Birth(e.getSim());
+            case Death          -> Death(e.getSim());
+            case Reproduction   -> Reproduction(e.getSim());
+            case EntersMatingAge-> EntersMatingAge(e.getSim());
+            case ExitsMatingAge -> ExitsMatingAge(e.getSim());
+            case Sample         -> Sample(e.getTime());
+        }
+    }
+
+    /**
+     * Crée {@code count} fondateurs nés à l'instant courant, en bloc.
+     * <p>Sexe, durée de vie et première tentative de reproduction sont tirés en parallèle,
+     * par tranches de {@value #FOUNDER_CHUNK} ayant chacune leur générateur dérivé de la
+     * graine : le résultat ne dépend pas du nombre de threads. Les Sims sont ensuite créés
+     * dans l'ordre et leurs événements ajoutés à la file par un seul heapify, au lieu d'un
+     * événement Birth puis de quatre insertions par fondateur.</p>
+     */
+    public void addFounders(int count) {
+        if (count < 0) throw new IllegalArgumentException("founder count must be non-negative");
+        final double now = calendarTime;
+        final boolean[] female = new boolean[count];
+        final double[] lifespan = new double[count];
+        final double[] firstAttempt = new double[count];
+        final long base = rnd.nextLong();
+        int chunks = (count + FOUNDER_CHUNK - 1) / FOUNDER_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            Random r = new Random(base + c * 0x9E3779B97F4A7C15L);
+            int to = Math.min(count, (c + 1) * FOUNDER_CHUNK);
+            for (int i = c * FOUNDER_CHUNK; i < to; i++) {
+                female[i] = !r.nextBoolean();
+                lifespan[i] = model.randomAge(r);
+                if (female[i]) firstAttempt[i] = Sim.MIN_MATING_AGE_F + AgeModel.randomWaitingTime(r, reproductionRate);
+            }
+        });
+
+        int nFemales = 0;
+        for (boolean f : female) if (f) nFemales++;
+        females.ensureCapacity(females.size() + nFemales);
+        males.ensureCapacity(males.size() + count - nFemales);
+        availableMales.ensureCapacity(availableMales.size() + count - nFemales);
+
+        List<Event> scheduled = new ArrayList<>(count * 2 + count / 2);
+        Sim[] mothers = new Sim[lazy ? count : 0];
+        double[] attempts = new double[lazy ? count : 0];
+        int nMothers = 0;
+        for (int i = 0; i < count; i++) {
+            Sim s = new Sim(null, null, now, female[i] ? Sex.F : Sex.M);
+            double death = now + lifespan[i];
+            s.setDeath(death);
+            if (female[i]) {
+                females.add(s);
+                double first = now + firstAttempt[i];
+                if (!lazy) {
+                    scheduled.add(new Event(Events.Reproduction, s, first));
+                } else if (first < Math.min(death, now + Sim.MAX_MATING_AGE_F)) {
+                    mothers[nMothers] = s;
+                    attempts[nMothers++] = first;
+                }
+            } else {
+                males.add(s);
+                scheduled.add(new Event(Events.EntersMatingAge, s, now + Sim.MIN_MATING_AGE_M));
+                scheduled.add(new Event(Events.ExitsMatingAge, s, now + Sim.MAX_MATING_AGE_M));
+            }
+            scheduled.add(new Event(Events.Death, s, death));
+            demography.born(s);
+        }
+        queueOperations += scheduled.size();
+        if (trace != null) trace.addAll(scheduled);
+        events.addAll(scheduled);
+        if (lazy) reproductions.addAll(mothers, attempts, nMothers);
+    }
+
     /** Ajoute un événement de naissance sans exécution immédiate. */
     public void scheduleBirthEvent(Sim sim) {
-        events.add(new Event(Events.Birth, sim, sim.getBirthTime()));
+        schedule(new Event(Events.Birth, sim, sim.getBirthTime()));
     }
 
 
@@ -143,39 +536,104 @@ public class Simulator {
 
     // Naissance
     public void Birth(Sim founder){
-        if (founder.getSex().equals(Sex.F)){
-            females.add(founder);
-            double firstReproduction = founder.getBirthTime() + Sim.MIN_MATING_AGE_F + AgeModel.randomWaitingTime(rnd, reproductionRate);
-            events.add(new Event(Events.Reproduction, founder, firstReproduction));
+        FlightEvents.Birth jfr = new FlightEvents.Birth();
+        jfr.begin();
+        register(founder);
+        commit(jfr);
+    }
+
+    public void Birth(Sim mother, Sim father){
+        FlightEvents.Birth jfr = new FlightEvents.Birth();
+        jfr.begin();
+        births++;
+        Sex sex = rnd.nextBoolean() ? Sex.M : Sex.F;     // même loi que Sex.getSex(), mais reproductible
+        Sim child = new Sim(mother, father, calendarTime, sex);
+        // sinon l'enfant quitte le dème avant tout événement
+        if (disperser == null || !disperser.test(child)) {
+            register(child);
+        }
+        commit(jfr);
+    }
+
+    /** Termine un événement JFR de gestionnaire ; ne l'enregistre que s'il dépasse son seuil. */
+    private void commit(FlightEvents.Handler jfr) {
+        jfr.end();
+        if (jfr.shouldCommit()) {
+            jfr.simTime = calendarTime;
+            jfr.population = getPopulation();
+            jfr.commit();
+        }
+    }
+
+    /** Inscrit un Sim né à {@code getBirthTime()} et planifie ses événements. */
+    private void register(Sim s){
+        double firstReproduction = Double.NaN;
+        if (s.getSex().equals(Sex.F)){
+            females.add(s);
+            firstReproduction = s.getBirthTime() + Sim.MIN_MATING_AGE_F + AgeModel.randomWaitingTime(rnd, reproductionRate);
         }
         else {
-            males.add(founder);
-            events.add(new Event(Events.EntersMatingAge, founder, founder.getBirthTime() + Sim.MIN_MATING_AGE_M));
-            events.add(new Event(Events.ExitsMatingAge, founder, founder.getBirthTime() + Sim.MAX_MATING_AGE_M));
+            males.add(s);
+            schedule(new Event(Events.EntersMatingAge, s, s.getBirthTime() + Sim.MIN_MATING_AGE_M));
+            schedule(new Event(Events.ExitsMatingAge, s, s.getBirthTime() + Sim.MAX_MATING_AGE_M));
+        }
+        double death = s.getBirthTime() + model.randomAge(rnd);
+        s.setDeath(death);
+        schedule(new Event(Events.Death, s, s.getDeathTime()));
+        demography.born(s);
+        // en mode paresseux, une mère morte ou trop âgée n'entre jamais dans l'échéancier
+        if (s.getSex().equals(Sex.F) && (!lazy ||
+                firstReproduction < Math.min(death, s.getBirthTime() + Sim.MAX_MATING_AGE_F))) {
+            scheduleReproduction(s, firstReproduction);
         }
-        double death = founder.getBirthTime() + model.randomAge(rnd);
-        founder.setDeath(death);
-        events.add(new Event(Events.Death, founder, founder.getDeathTime()));
-        samplePopulation();
     }
 
-    public void Birth(Sim mother, Sim father){
-        Sex sex = Sex.getSex();
-        Sim child = new Sim(mother, father, calendarTime, sex);
-        if (child.getSex().equals(Sex.F)){
-            females.add(child);
-            double firstReproduction = child.getBirthTime() + Sim.MIN_MATING_AGE_F + AgeModel.randomWaitingTime(rnd, reproductionRate);
-            events.add(new Event(Events.Reproduction, child, firstReproduction));
+    /**
+     * Accueille un Sim venu d'ailleurs (migrant) à l'instant courant.
+     * Si sa date de mort n'est pas encore fixée, elle est tirée depuis sa naissance ;
+     * les événements déjà passés ne sont pas planifiés.
+     *
+     * @return false si le Sim est mort avant son arrivée
+     */
+    public boolean Immigrate(Sim s){
+        if (s.getDeathTime() == Double.POSITIVE_INFINITY) {
+            s.setDeath(s.getBirthTime() + model.randomAge(rnd));
+        }
+        if (s.getDeathTime() <= calendarTime) {
+            return false;
+        }
+        if (s.getSex().equals(Sex.F)){
+            females.add(s);
+            double start = Math.max(calendarTime, s.getBirthTime() + Sim.MIN_MATING_AGE_F);
+            double next = start + AgeModel.randomWaitingTime(rnd, reproductionRate);
+            if (next < s.getBirthTime() + Sim.MAX_MATING_AGE_F && next < s.getDeathTime()) {
+                scheduleReproduction(s, next);
+            }
         }
         else {
-            males.add(child);
-            events.add(new Event(Events.EntersMatingAge, child, child.getBirthTime() + Sim.MIN_MATING_AGE_M));
-            events.add(new Event(Events.ExitsMatingAge, child, child.getBirthTime() + Sim.MAX_MATING_AGE_M));
+            males.add(s);
+            double enters = s.getBirthTime() + Sim.MIN_MATING_AGE_M;
+            double exits = s.getBirthTime() + Sim.MAX_MATING_AGE_M;
+            if (enters > calendarTime) {
+                schedule(new Event(Events.EntersMatingAge, s, enters));
+            } else if (exits > calendarTime) {
+                availableMales.add(s);
+            }
+            if (exits > calendarTime) {
+                schedule(new Event(Events.ExitsMatingAge, s, exits));
+            }
         }
-        double death = child.getBirthTime() + model.randomAge(rnd);
-        child.setDeath(death);
-        events.add(new Event(Events.Death, child, child.getDeathTime()));
-        samplePopulation();
+        schedule(new Event(Events.Death, s, s.getDeathTime()));
+        demography.born(s);
+        return true;
+    }
+
+    /**
+     * Installe un filtre de dispersion natale : tout nouveau-né pour lequel
+     * {@code disperser} renvoie true est retiré du dème (voir {@link Demes}).
+     */
+    public void setDisperser(Predicate<Sim> disperser){
+        this.disperser = disperser;
     }
 
 
@@ -184,13 +642,21 @@ public class Simulator {
 
     // Mort
     public void Death(Sim s){
+        FlightEvents.Death jfr = new FlightEvents.Death();
+        jfr.begin();
+        boolean removed;
         if (s.getSex().equals(Sex.F)) {
-            females.remove(s);
+            removed = females.remove(s);
         }
         else {
-            males.remove(s);
+            removed = males.remove(s);
+            availableMales.remove(s);            // un mort n'est plus un partenaire possible
         }
-        samplePopulation();
+        if (removed) {
+            demography.died(s);
+            if (s.isInARelationship(calendarTime)) demography.pairEnded();
+        }
+        commit(jfr);
     }
 
 
@@ -201,7 +667,7 @@ public class Simulator {
     }
 
     public void EntersMatingAge(Sim male) {
-        availableMales.add(male);
+        if (male.getDeathTime() > calendarTime) availableMales.add(male);     // mort avant 16 ans : jamais disponible
     }
 
     public void ExitsMatingAge(Sim male) {
@@ -209,31 +675,62 @@ public class Simulator {
     }
 
     public Sim Mate(Sim f){
+        FlightEvents.Mate jfr = new FlightEvents.Mate();
+        jfr.begin();
+        Sim mate = choosePartner(f);
+        if (jfr.isEnabled()) jfr.availableMales = availableMales.size();
+        commit(jfr);
+        return mate;
+    }
+
+    private Sim choosePartner(Sim f){
         if (f.isInARelationship(calendarTime) && isFaithful()){
             return f.getMate();
         }
-        if (availableMales.isEmpty()){
+        Sim male = availableMales.random(rnd);
+        if (male == null){
             return null;
         }
 
-        List<Sim> availableList = new ArrayList<>(availableMales);
-        Sim male = availableList.get(rnd.nextInt(availableList.size()));
-
-        f.setMate(male);
-        male.setMate(f);
+        formPair(f, male, f.getMate());
 
         return f.getMate();
     }
 
+    /**
+     * Forme le couple (f, m) et tient le compte des couples vivants.
+     * {@code previous} est l'ancien partenaire de f (déjà écrasé par les moteurs à fenêtres).
+     */
+    void formPair(Sim f, Sim m, Sim previous){
+        if (previous != null && previous.getMate() == f && previous.getDeathTime() > calendarTime) {
+            demography.pairEnded();
+        }
+        Sim rival = m.getMate();
+        if (rival != null && rival != f && rival.getMate() == m
+                && rival.getDeathTime() > calendarTime && m.getDeathTime() > calendarTime) {
+            demography.pairEnded();
+        }
+        f.setMate(m);
+        m.setMate(f);
+        if (m.getDeathTime() > calendarTime && f.getDeathTime() > calendarTime) {
+            demography.pairFormed();
+        }
+    }
+
     private double nextReproduction(Sim s){
-        double age = calendarTime - s.getBirthTime();
+        return nextReproduction(s, calendarTime, rnd);
+    }
+
+    /** Prochaine tentative de reproduction de {@code s} vue depuis {@code now} ; -1 si aucune. */
+    double nextReproduction(Sim s, double now, Random r){
+        double age = now - s.getBirthTime();
         if (age < Sim.MIN_MATING_AGE_F){
             double wait = Sim.MIN_MATING_AGE_F - age;
-            return calendarTime + wait;
+            return now + wait;
         }
         double maxReproduction = s.getBirthTime() + Sim.MAX_MATING_AGE_F;
-        double wait = AgeModel.randomWaitingTime(rnd, reproductionRate);
-        double nextTime = calendarTime + wait;
+        double wait = AgeModel.randomWaitingTime(r, reproductionRate);
+        double nextTime = now + wait;
         if (nextTime < maxReproduction) {
             return nextTime;
         } else {
@@ -241,7 +738,15 @@ public class Simulator {
         }
     }
     public void Reproduction(Sim mother){
+        FlightEvents.Reproduction jfr = new FlightEvents.Reproduction();
+        jfr.begin();
+        attemptReproduction(mother);
+        commit(jfr);
+    }
+
+    private void attemptReproduction(Sim mother){
         if (mother.getDeathTime() < calendarTime){
+            if (lazy) reschedule(mother, -1);
             return;
         }
         if (mother.isMatingAge(calendarTime)) {
@@ -251,18 +756,149 @@ public class Simulator {
             }
         }
         double nextTime = nextReproduction(mother);
-        if (nextTime > 0 && nextTime < mother.getDeathTime() &&
-                calendarTime - mother.getBirthTime() < Sim.MAX_MATING_AGE_F) {
-            events.add(new Event(Events.Reproduction, mother, nextTime));
+        boolean again = nextTime > 0 && nextTime < mother.getDeathTime() &&
+                calendarTime - mother.getBirthTime() < Sim.MAX_MATING_AGE_F;
+        if (lazy) {
+            reschedule(mother, again ? nextTime : -1);
+        } else if (again) {
+            scheduleReproduction(mother, nextTime);
+        }
+    }
+
+    /* ---------- Accès pour les moteurs parallèles (même paquet) ---------- */
+
+    double getFidelity() {
+        return fidelity;
+    }
+
+    /** Copie des hommes vivants (ordre arbitraire). */
+    Sim[] livingMales() {
+        return males.toArray();
+    }
+
+    /** Copie des femmes vivantes (ordre arbitraire). */
+    Sim[] livingFemales() {
+        return females.toArray();
+    }
+
+    /** Copie figée des hommes disponibles, dans l'ordre d'itération de l'ensemble. */
+    Sim[] availableMalesSnapshot() {
+        return availableMales.toArray();
+    }
+
+    /** Tirages d'une naissance faits d'avance : sexe, durée de vie, délai de la première tentative (NaN pour un garçon). */
+    record Newborn(Sex sex, double lifespan, double firstAttempt) {}
+
+    /** Tire une naissance avec {@code r} ; appelable depuis plusieurs threads. */
+    Newborn drawNewborn(Random r) {
+        Sex sex = r.nextBoolean() ? Sex.M : Sex.F;
+        double first = sex == Sex.F
+                ? Sim.MIN_MATING_AGE_F + AgeModel.randomWaitingTime(r, reproductionRate) : Double.NaN;
+        return new Newborn(sex, model.randomAge(r), first);
+    }
+
+    /**
+     * Naissance tirée d'avance par {@link #drawNewborn} : l'enfant entre dans la population,
+     * mais ses événements ne sont pas planifiés (voir {@link #newbornEvents}).
+     *
+     * @return l'enfant, ou null s'il quitte le dème (dispersion natale)
+     */
+    Sim Birth(Sim mother, Sim father, Newborn draw) {
+        FlightEvents.Birth jfr = new FlightEvents.Birth();
+        jfr.begin();
+        births++;
+        Sim child = new Sim(mother, father, calendarTime, draw.sex());
+        if (disperser != null && disperser.test(child)) {
+            commit(jfr);
+            return null;
+        }
+        child.setDeath(calendarTime + draw.lifespan());
+        (draw.sex() == Sex.F ? females : males).add(child);
+        demography.born(child);
+        commit(jfr);
+        return child;
+    }
+
+    /** Événements d'un enfant né par {@link #Birth(Sim, Sim, Newborn)}, ajoutés à {@code out} ; appelable depuis plusieurs threads. */
+    void newbornEvents(Sim s, Newborn draw, List<Event> out) {
+        double birth = s.getBirthTime();
+        if (s.getSex() == Sex.M) {
+            out.add(new Event(Events.EntersMatingAge, s, birth + Sim.MIN_MATING_AGE_M));
+            out.add(new Event(Events.ExitsMatingAge, s, birth + Sim.MAX_MATING_AGE_M));
+        }
+        out.add(new Event(Events.Death, s, s.getDeathTime()));
+        if (s.getSex() == Sex.F) {
+            double first = birth + draw.firstAttempt();
+            if (!lazy || first < Math.min(s.getDeathTime(), birth + Sim.MAX_MATING_AGE_F)) {
+                out.add(new Event(Events.Reproduction, s, first));
+            }
+        }
+    }
+
+    /**
+     * Retire tous les événements en attente, tentatives paresseuses comprises (rendues comme
+     * événements Reproduction), dans l'ordre des tas : un moteur à fenêtres les reprend à son compte.
+     */
+    List<Event> drainEvents() {
+        if (lazy) settle();
+        List<Event> pending;
+        if (trace == null) {
+            pending = events.toList();
+            events = newEventStore(hasOffHeapEvents());
+        } else {
+            pending = new ArrayList<>(events.size());
+            while (!events.isEmpty()) {
+                trace.poll();
+                pending.add(events.poll());
+            }
+        }
+        queueOperations += pending.size();
+        if (lazy) {
+            for (int i = 0; i < reproductions.size(); i++) {
+                pending.add(new Event(Events.Reproduction, reproductions.motherAt(i), reproductions.timeAt(i)));
+            }
+            reproductions.clear();
+        }
+        return pending;
+    }
+
+    /** Remet en file des événements retirés par {@link #drainEvents}, en bloc. */
+    void scheduleAll(List<Event> pending) {
+        List<Event> queued = pending;
+        if (lazy) {
+            queued = new ArrayList<>(pending.size());
+            Sim[] mothers = new Sim[pending.size()];
+            double[] times = new double[pending.size()];
+            int n = 0;
+            for (Event e : pending) {
+                if (e.getEvent() == Events.Reproduction) {
+                    mothers[n] = e.getSim();
+                    times[n++] = e.getTime();
+                } else {
+                    queued.add(e);
+                }
+            }
+            reproductions.addAll(mothers, times, n);
+        }
+        queueOperations += queued.size();
+        if (trace != null) trace.addAll(queued);
+        events.addAll(queued);
+    }
+
+    /** Planifie une tentative de reproduction (dans l'échéancier dédié en mode paresseux). */
+    void scheduleReproduction(Sim mother, double time) {
+        if (lazy) {
+            reproductions.add(mother, time);
+        } else {
+            schedule(new Event(Events.Reproduction, mother, time));
         }
-        samplePopulation();
     }
 
     /** Renvoie la population vivante à l'instant courant. */
     public Collection<Sim> getLivingPopulation() {
         List<Sim> pop = new ArrayList<>(males.size() + females.size());
-        pop.addAll(males.toList());
-        pop.addAll(females.toList());
+        pop.addAll(males);
+        pop.addAll(females);
         return pop;
     }
 
@@ -271,16 +907,257 @@ public class Simulator {
         return popSamples;
     }
 
-    /** Force l'enregistrement d'un échantillon à l'instant courant. */
-    public void recordSample() {
-        samplePopulation();
+    /** Échantillons démographiques complets, aux mêmes jalons que {@link #getPopSamples()}. */
+    public List<Demography.Sample> getDemographicSamples() {
+        return demographicSamples;
     }
 
-    /** Met à jour la liste de points si l'on a passé le prochain jalon. */
-    private void samplePopulation() {
+    /** Compteurs démographiques courants. */
+    public Demography getDemography() {
+        return demography;
+    }
+
+    /** Force l'enregistrement des jalons déjà dépassés par l'horloge. */
+    public void recordSample() {
+        if (calendarTime < nextSample || nextSample > horizon) return;
         while (calendarTime >= nextSample && nextSample <= horizon) {
-            popSamples.add(new PointPop(nextSample, getPopulation()));
-            nextSample += 100.0;
+            takeSample();
+        }
+        // l'événement Sample encore en file est désormais périmé
+        if (nextSample <= horizon) schedule(new Event(Events.Sample, null, nextSample));
+    }
+
+    /** Événement d'échantillonnage ; ignoré s'il est périmé. */
+    public void Sample(double time) {
+        if (time != nextSample || nextSample > horizon) return;
+        takeSample();
+        if (nextSample <= horizon) schedule(new Event(Events.Sample, null, nextSample));
+    }
+
+    private void takeSample() {
+        popSamples.add(new PointPop(nextSample, getPopulation()));
+        demographicSamples.add(demography.sample(nextSample, availableMales.size(), PYRAMID_BUCKET_YEARS));
+        nextSample += SAMPLE_PERIOD;
+    }
+
+    /** Le prochain jalon d'échantillonnage est le premier multiple de 100 ans ≥ {@code time}. */
+    void startSamplingAt(double time) {
+        nextSample = Math.ceil(time / SAMPLE_PERIOD) * SAMPLE_PERIOD;
+        if (nextSample <= horizon) schedule(new Event(Events.Sample, null, nextSample));
+    }
+
+    /* ---------- Paramètres et état sérialisé (voir ResultCache) ---------- */
+
+    /**
+     * Tous les paramètres du modèle qui influencent une simulation, hors fondateurs,
+     * graine et horizon : loi de mortalité, âges de reproduction, fidélité, taux de
+     * reproduction, période d'échantillonnage et mode d'échéancier.
+     */
+    static String parameters(boolean lazyReproduction) {
+        AgeModel m = new AgeModel();
+        double sp = m.expectedParenthoodSpan(Sim.MIN_MATING_AGE_F, Sim.MAX_MATING_AGE_F);
+        return m + "\nmatingF=" + Sim.MIN_MATING_AGE_F + ".." + Sim.MAX_MATING_AGE_F
+                + "\nmatingM=" + Sim.MIN_MATING_AGE_M + ".." + Sim.MAX_MATING_AGE_M
+                + "\nfidelity=" + DEFAULT_FIDELITY + "\nreproductionRate=" + DEFAULT_STABLE_RATE / sp
+                + "\nsamplePeriod=" + SAMPLE_PERIOD + "\nlazy=" + lazyReproduction;
+    }
+
+    /**
+     * Écrit l'état complet du simulateur : les Sims vivants ou en file, tous leurs
+     * ancêtres (pour la coalescence) et les partenaires de ceux-ci, puis les files
+     * d'événements dans l'ordre du tas, le générateur, les compteurs et les échantillons.
+     * Une simulation reprise par {@link #readState} se poursuit exactement comme
+     * l'originale. Observateurs, conditions d'arrêt et dispersion ne sont pas écrits.
+     */
+    void writeState(DataOutputStream out) throws IOException {
+        if (lazy) settle();
+        List<Event> queued = events.toList();
+
+        // Sims à écrire : fermeture par les parents, puis les partenaires (sans leurs parents).
+        // Marquage et index par identifiant : un parent est créé avant ses enfants, donc
+        // l'ordre des identifiants est aussi un ordre de création valide à la relecture.
+        BitSet seen = new BitSet(Sim.simCount());
+        List<Sim> table = new ArrayList<>();
+        ArrayDeque<Sim> pending = new ArrayDeque<>(males.size() + females.size());
+        pending.addAll(males);
+        pending.addAll(females);
+        for (Event e : queued) if (e.getSim() != null) pending.push(e.getSim());
+        if (lazy) for (int i = 0; i < reproductions.size(); i++) pending.push(reproductions.motherAt(i));
+        while (!pending.isEmpty()) {
+            Sim s = pending.pop();
+            if (seen.get(s.getIdent())) continue;
+            seen.set(s.getIdent());
+            table.add(s);
+            if (s.getMother() != null) pending.push(s.getMother());
+            if (s.getFather() != null) pending.push(s.getFather());
+        }
+        for (int i = 0, n = table.size(); i < n; i++) {
+            Sim m = table.get(i).getMate();
+            if (m != null && !seen.get(m.getIdent())) {
+                seen.set(m.getIdent());
+                table.add(m);
+            }
+        }
+        long[] order = new long[table.size()];                          // (identifiant, position), tri primitif
+        for (int i = 0; i < order.length; i++) order[i] = (long) table.get(i).getIdent() << 32 | i;
+        Arrays.sort(order);
+        int[] idents = new int[order.length];
+        List<Sim> sorted = new ArrayList<>(order.length);
+        for (int i = 0; i < order.length; i++) {
+            idents[i] = (int) (order[i] >>> 32);
+            sorted.add(table.get((int) order[i]));
+        }
+        table = sorted;
+        ToIntFunction<Sim> index = s -> s == null ? -1 : Math.max(-1, Arrays.binarySearch(idents, s.getIdent()));
+
+        out.writeInt(STATE_MAGIC);
+        out.writeBoolean(lazy);
+        out.writeDouble(calendarTime);
+        out.writeDouble(nextSample);
+        out.writeLong(getQueueOperations());
+        out.writeLong(births);
+        ByteArrayOutputStream random = new ByteArrayOutputStream();
+        try (ObjectOutputStream o = new ObjectOutputStream(random)) {
+            o.writeObject(rnd);
+        }
+        out.writeInt(random.size());
+        random.writeTo(out);
+
+        out.writeInt(table.size());
+        for (Sim s : table) {
+            out.writeByte(s.getSex().ordinal());
+            out.writeDouble(s.getBirthTime());
+            out.writeDouble(s.getDeathTime());
+            out.writeInt(index.applyAsInt(s.getMother()));
+            out.writeInt(index.applyAsInt(s.getFather()));
+        }
+        for (Sim s : table) out.writeInt(index.applyAsInt(s.getMate()));
+
+        for (SimSet set : new SimSet[] {males, females, availableMales}) {
+            out.writeInt(set.size());
+            for (Sim s : set) out.writeInt(index.applyAsInt(s));
         }
+        out.writeInt(queued.size());
+        for (Event e : queued) {
+            out.writeByte(e.getEvent().ordinal());
+            out.writeInt(index.applyAsInt(e.getSim()));
+            out.writeDouble(e.getTime());
+        }
+        if (lazy) {
+            out.writeInt(reproductions.size());
+            for (int i = 0; i < reproductions.size(); i++) {
+                out.writeInt(index.applyAsInt(reproductions.motherAt(i)));
+                out.writeDouble(reproductions.timeAt(i));
+            }
+        }
+        demography.write(out);
+
+        out.writeInt(popSamples.size());
+        for (PointPop p : popSamples) {
+            out.writeDouble(p.time());
+            out.writeInt(p.pop());
+        }
+        out.writeInt(demographicSamples.size());
+        for (Demography.Sample d : demographicSamples) {
+            out.writeDouble(d.time());
+            out.writeInt(d.males());
+            out.writeInt(d.females());
+            out.writeInt(d.matedPairs());
+            out.writeInt(d.fertileFemales());
+            out.writeInt(d.availableMales());
+            out.writeInt(d.bucketYears());
+            writeInts(out, d.maleAges());
+            writeInts(out, d.femaleAges());
+        }
+    }
+
+    /**
+     * Reprend un état écrit par {@link #writeState} avec un nouvel {@code horizon}
+     * (au moins la date de l'état) ; les jalons d'échantillonnage jusqu'à cet horizon
+     * sont replanifiés.
+     */
+    static Simulator readState(DataInputStream in, double horizon) throws IOException {
+        if (in.readInt() != STATE_MAGIC) throw new IOException("not a simulator state");
+        boolean lazy = in.readBoolean();
+        double time = in.readDouble();
+        if (horizon < time) throw new IllegalArgumentException("horizon " + horizon + " precedes the saved state at " + time);
+        Simulator restored = new Simulator(0L, horizon, lazy);
+        restored.events = restored.newEventStore(OFF_HEAP);    // sans le Sample initial
+        restored.calendarTime = time;
+        restored.nextSample = in.readDouble();
+        long operations = in.readLong();
+        restored.births = in.readLong();
+        byte[] random = new byte[in.readInt()];
+        in.readFully(random);
+        try (ObjectInputStream o = new ObjectInputStream(new ByteArrayInputStream(random))) {
+            o.setObjectInputFilter(ObjectInputFilter.Config.createFilter("java.util.Random;!*"));
+            restored.rnd = (Random) o.readObject();
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("corrupt random generator state", ex);
+        }
+
+        Sim[] table = new Sim[in.readInt()];
+        for (int i = 0; i < table.length; i++) {
+            Sex sex = Sex.values()[in.readByte()];
+            double birth = in.readDouble();
+            double death = in.readDouble();
+            int mother = in.readInt(), father = in.readInt();
+            table[i] = new Sim(mother < 0 ? null : table[mother], father < 0 ? null : table[father], birth, sex);
+            table[i].setDeath(death);
+        }
+        for (Sim s : table) {
+            int mate = in.readInt();
+            if (mate >= 0) s.setMate(table[mate]);
+        }
+        for (SimSet set : new SimSet[] {restored.males, restored.females, restored.availableMales}) {
+            int n = in.readInt();
+            set.ensureCapacity(n);
+            for (int i = 0; i < n; i++) set.add(table[in.readInt()]);
+        }
+        List<Event> queued = new ArrayList<>();
+        boolean sampleQueued = false;
+        for (int i = in.readInt(); i > 0; i--) {
+            Events type = Events.values()[in.readByte()];
+            int s = in.readInt();
+            queued.add(restored.new Event(type, s < 0 ? null : table[s], in.readDouble()));
+            sampleQueued |= type == Events.Sample;
+        }
+        restored.events.addAll(queued);                    // déjà un tas : ordre conservé
+        if (restored.lazy) {
+            int n = in.readInt();
+            Sim[] mothers = new Sim[n];
+            double[] times = new double[n];
+            for (int i = 0; i < n; i++) {
+                mothers[i] = table[in.readInt()];
+                times[i] = in.readDouble();
+            }
+            restored.reproductions.addAll(mothers, times, n);
+        }
+        restored.queueOperations = operations - (restored.lazy ? restored.reproductions.operations() : 0L);
+        restored.demography.read(in);
+
+        for (int i = in.readInt(); i > 0; i--) {
+            restored.popSamples.add(new PointPop(in.readDouble(), in.readInt()));
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            restored.demographicSamples.add(new Demography.Sample(in.readDouble(), in.readInt(), in.readInt(),
+                    in.readInt(), in.readInt(), in.readInt(), in.readInt(), readInts(in), readInts(in)));
+        }
+        // l'état a pu être pris à un horizon plus court : prochain jalon à replanifier
+        if (!sampleQueued && restored.nextSample <= horizon) {
+            restored.schedule(restored.new Event(Events.Sample, null, restored.nextSample));
+        }
+        return restored;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int v : values) out.writeInt(v);
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) values[i] = in.readInt();
+        return values;
     }
-}
\ No newline at end of file
+}
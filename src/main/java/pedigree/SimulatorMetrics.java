@@ -0,0 +1,164 @@
+package pedigree;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * SimulatorMetrics : métriques en direct d'un {@link Simulator}.
+ * <p>Les événements sont comptés par type dans des {@link LongAdder} (compteurs
+ * répartis, lisibles sans verrou depuis le thread JMX). Les jauges (taille de la
+ * file, vivants, hommes disponibles) et les débits sont relevés par un observateur
+ * périodique et publiés dans des champs {@code volatile} : le thread de simulation
+ * n'est jamais interrompu par une lecture.</p>
+ * <p>Exposées par {@link #register(String)} sous
+ * {@code pedigree:type=Simulator,name=...}, et optionnellement imprimées par
+ * {@link #logEvery(PrintStream, long)}.</p>
+ */
+public final class SimulatorMetrics implements SimulatorMetricsMBean {
+
+    private final LongAdder[] counts = new LongAdder[Simulator.Events.values().length];
+    private final double horizon;
+
+    private volatile int queueSize;
+    private volatile int males;
+    private volatile int females;
+    private volatile int availableMales;
+    private volatile double time;
+    private volatile double eventsPerSecond = Double.NaN;
+    private volatile double yearsPerSecond = Double.NaN;
+
+    private long lastNanos;
+    private double lastTime;
+    private long lastEvents;
+
+    private PrintStream log;
+    private long logIntervalNanos;
+    private long lastLogNanos;
+
+    private SimulatorMetrics(Simulator sim) {
+        for (int i = 0; i < counts.length; i++) counts[i] = new LongAdder();
+        horizon = sim.getHorizon();
+        lastNanos = System.nanoTime();
+        lastTime = sim.getTime();
+        publish(sim, lastTime);
+    }
+
+    /**
+     * Branche les métriques sur {@code sim} : comptage à chaque événement, relevé des
+     * jauges et des débits toutes les {@code period} années simulées.
+     */
+    public static SimulatorMetrics attach(Simulator sim, double period) {
+        SimulatorMetrics m = new SimulatorMetrics(sim);
+        sim.addEventObserver(new Simulator.Observer() {
+            @Override
+            public void onEvent(Simulator s, Simulator.Event e) {
+                m.counts[e.getEvent().ordinal()].increment();
+            }
+        });
+        sim.addPeriodicObserver(new Simulator.Observer() {
+            @Override
+            public void onPeriod(Simulator s, double t) {
+                m.sample(s, t);
+            }
+        }, period);
+        return m;
+    }
+
+    /** Enregistre ce MBean auprès du serveur JMX de la plateforme. */
+    public void register(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName("pedigree:type=Simulator,name=" + ObjectName.quote(name)));
+        } catch (JMException ex) {
+            throw new IllegalStateException("cannot register metrics MBean " + name, ex);
+        }
+    }
+
+    /** Imprime une ligne de métriques au plus toutes les {@code millis} ms (temps réel). */
+    public void logEvery(PrintStream out, long millis) {
+        if (millis <= 0) throw new IllegalArgumentException("log interval must be positive");
+        log = out;
+        logIntervalNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        lastLogNanos = System.nanoTime();
+    }
+
+    /* ===================== Relevé (thread de simulation) ===================== */
+
+    /** Relevé à la date de période {@code t} (l'horloge du simulateur est au dernier événement). */
+    private void sample(Simulator sim, double t) {
+        long now = System.nanoTime();
+        long events = getEventsProcessed();
+        double elapsed = (now - lastNanos) / 1e9;
+        if (elapsed > 0.0) {
+            eventsPerSecond = (events - lastEvents) / elapsed;
+            yearsPerSecond = (t - lastTime) / elapsed;
+        }
+        lastNanos = now;
+        lastEvents = events;
+        lastTime = t;
+        publish(sim, t);
+        if (log != null && now - lastLogNanos >= logIntervalNanos) {
+            lastLogNanos = now;
+            log.println(toString());
+        }
+    }
+
+    private void publish(Simulator sim, double t) {
+        queueSize = sim.getQueueSize();
+        males = sim.getMaleCount();
+        females = sim.getFemaleCount();
+        availableMales = sim.getAvailableMaleCount();
+        time = t;
+    }
+
+    private long count(Simulator.Events e) {
+        return counts[e.ordinal()].sum();
+    }
+
+    /* ===================== MBean ===================== */
+
+    @Override
+    public long getEventsProcessed() {
+        long n = 0;
+        for (LongAdder c : counts) n += c.sum();
+        return n;
+    }
+
+    @Override public long getBirthEvents()           { return count(Simulator.Events.Birth); }
+    @Override public long getDeathEvents()           { return count(Simulator.Events.Death); }
+    @Override public long getReproductionEvents()    { return count(Simulator.Events.Reproduction); }
+    @Override public long getEntersMatingAgeEvents() { return count(Simulator.Events.EntersMatingAge); }
+    @Override public long getExitsMatingAgeEvents()  { return count(Simulator.Events.ExitsMatingAge); }
+    @Override public long getSampleEvents()          { return count(Simulator.Events.Sample); }
+
+    @Override public int getQueueSize()       { return queueSize; }
+    @Override public int getLivingMales()     { return males; }
+    @Override public int getLivingFemales()   { return females; }
+    @Override public int getAvailableMales()  { return availableMales; }
+
+    @Override public double getSimulatedTime()           { return time; }
+    @Override public double getHorizon()                 { return horizon; }
+    @Override public double getEventsPerSecond()         { return eventsPerSecond; }
+    @Override public double getSimulatedYearsPerSecond() { return yearsPerSecond; }
+
+    @Override
+    public double getEtaSeconds() {
+        double rate = yearsPerSecond;
+        return rate > 0.0 ? Math.max(0.0, horizon - time) / rate : Double.NaN;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "t=%.1f/%.0f events=%d (%.0f/s) years/s=%.2f queue=%d males=%d females=%d available=%d eta=%.0fs",
+                time, horizon, getEventsProcessed(), eventsPerSecond, yearsPerSecond,
+                queueSize, males, females, availableMales, getEtaSeconds());
+    }
+}
@@ -0,0 +1,28 @@
+package pedigree;
+
+/**
+ * Interface JMX de {@link SimulatorMetrics}. Les compteurs sont exacts ; les jauges
+ * et les débits sont ceux de la dernière publication (une par période simulée).
+ */
+public interface SimulatorMetricsMBean {
+
+    long getEventsProcessed();
+    long getBirthEvents();
+    long getDeathEvents();
+    long getReproductionEvents();
+    long getEntersMatingAgeEvents();
+    long getExitsMatingAgeEvents();
+    long getSampleEvents();
+
+    int getQueueSize();
+    int getLivingMales();
+    int getLivingFemales();
+    int getAvailableMales();
+
+    double getSimulatedTime();
+    double getHorizon();
+    double getEventsPerSecond();
+    double getSimulatedYearsPerSecond();
+    /** Temps réel restant estimé jusqu'à l'horizon, en secondes (NaN si inconnu). */
+    double getEtaSeconds();
+}
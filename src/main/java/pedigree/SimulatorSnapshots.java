@@ -0,0 +1,116 @@
+package pedigree;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SimulatorSnapshots : vues figées de l'état d'un {@link Simulator} en cours d'exécution.
+ * <p>Toutes les {@code period} années simulées, le thread de simulation construit un
+ * {@link Snapshot} immuable (compteurs, identifiants et Sims vivants) et le publie
+ * par une simple écriture atomique. Les lecteurs (tableau de bord, JMX...) lisent la
+ * dernière époque publiée sans verrou et sans jamais bloquer le traitement des
+ * événements ; ils ne touchent pas aux structures du simulateur.</p>
+ * <p>Seuls les champs immuables des Sims d'un instantané (identité, sexe, naissance,
+ * parents) sont lisibles depuis un autre thread : assez pour une coalescence partielle
+ * ({@link Snapshot#paternal()}, {@link Snapshot#maternal()}).</p>
+ */
+public final class SimulatorSnapshots {
+
+    /** État de la population à la fin d'une époque. */
+    public static final class Snapshot {
+        private final long epoch;
+        private final double time;
+        private final int availableMales;
+        private final int matedPairs;
+        private final int queueSize;
+        private final long births;
+        private final Sim[] males;
+        private final Sim[] females;
+
+        Snapshot(long epoch, double time, Simulator sim) {
+            this.epoch = epoch;
+            this.time = time;
+            this.availableMales = sim.getAvailableMaleCount();
+            this.matedPairs = sim.getDemography().getMatedPairs();
+            this.queueSize = sim.getQueueSize();
+            this.births = sim.getBirths();
+            this.males = sim.livingMales();
+            this.females = sim.livingFemales();
+        }
+
+        public long getEpoch()          { return epoch; }
+        public double getTime()         { return time; }
+        public int getMales()           { return males.length; }
+        public int getFemales()         { return females.length; }
+        public int getPopulation()      { return males.length + females.length; }
+        public int getAvailableMales()  { return availableMales; }
+        public int getMatedPairs()      { return matedPairs; }
+        public int getQueueSize()       { return queueSize; }
+        public long getBirths()         { return births; }
+
+        /** Identifiants des hommes vivants (copie). */
+        public int[] maleIds() {
+            return ids(males);
+        }
+
+        /** Identifiants des femmes vivantes (copie). */
+        public int[] femaleIds() {
+            return ids(females);
+        }
+
+        /** Population vivante, en lecture seule. */
+        public List<Sim> living() {
+            Sim[] all = Arrays.copyOf(males, males.length + females.length);
+            System.arraycopy(females, 0, all, males.length, females.length);
+            return Collections.unmodifiableList(Arrays.asList(all));
+        }
+
+        /** Lignées paternelles de la population de l'instantané. */
+        public List<Coalescence.Point> paternal() {
+            return Coalescence.paternal(living(), time);
+        }
+
+        /** Lignées maternelles de la population de l'instantané. */
+        public List<Coalescence.Point> maternal() {
+            return Coalescence.maternal(living(), time);
+        }
+
+        private static int[] ids(Sim[] sims) {
+            int[] ids = new int[sims.length];
+            for (int i = 0; i < sims.length; i++) ids[i] = sims[i].getIdent();
+            return ids;
+        }
+    }
+
+    private final AtomicReference<Snapshot> latest = new AtomicReference<>();
+    private long epoch;
+
+    private SimulatorSnapshots() {}
+
+    /**
+     * Publie un instantané de {@code sim} maintenant, puis toutes les {@code period}
+     * années simulées. Chaque publication coûte O(population) au thread de simulation.
+     */
+    public static SimulatorSnapshots attach(Simulator sim, double period) {
+        SimulatorSnapshots s = new SimulatorSnapshots();
+        s.publish(sim, sim.getTime());
+        sim.addPeriodicObserver(new Simulator.Observer() {
+            @Override
+            public void onPeriod(Simulator source, double time) {
+                s.publish(source, time);
+            }
+        }, period);
+        return s;
+    }
+
+    private void publish(Simulator sim, double time) {
+        latest.set(new Snapshot(epoch++, time, sim));
+    }
+
+    /** Dernier instantané publié ; sans verrou, appelable depuis n'importe quel thread. */
+    public Snapshot latest() {
+        return latest.get();
+    }
+}
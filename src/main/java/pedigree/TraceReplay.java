@@ -0,0 +1,406 @@
+package pedigree;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import pedigree.Sim.Sex;
+
+/**
+ * TraceReplay : rejoue une trace de {@link TraceRecorder} sur des structures candidates,
+ * sans hasard ni logique de simulation dans la boucle.
+ * <p>La trace est d'abord décodée en tableaux ; chaque passe rejoue ensuite toutes les
+ * opérations, dans l'ordre, sur une {@link EventQueue} et trois {@link MatingSet}
+ * neufs. Le débit se mesure sur des passes sans chronométrage individuel ; les
+ * percentiles de latence, sur une passe où chaque opération est encadrée par
+ * {@link System#nanoTime} (coût de la mesure inclus, affiché à part).</p>
+ * <p>Les dates rejouées sont celles de la trace, arrondies : deux événements
+ * simultanés dans la trace peuvent sortir dans un autre ordre que dans la simulation,
+ * sans effet sur la suite des opérations rejouées.</p>
+ */
+public final class TraceReplay {
+
+    private TraceReplay() {}
+
+    /** Événement rejoué : date, type ({@link Simulator.Events#ordinal}) et identifiant du Sim. */
+    public record Entry(double time, int kind, int id) {}
+
+    /** Ordre du simulateur : date, puis type (voir {@code Simulator.EventComparator}). */
+    public static final Comparator<Entry> ORDER = (a, b) -> {
+        int c = Double.compare(a.time(), b.time());
+        return c != 0 ? c : Integer.compare(a.kind(), b.kind());
+    };
+
+    /** File candidate : le sous-ensemble de {@link PriorityQueueO} dont se sert le simulateur. */
+    public interface EventQueue {
+        void add(Entry e);
+        Entry poll();
+        int size();
+
+        default void addAll(List<Entry> entries) {
+            for (Entry e : entries) add(e);
+        }
+    }
+
+    /** Ensemble candidat : le sous-ensemble de {@link SimSet} dont se sert le simulateur. */
+    public interface MatingSet {
+        boolean add(Sim s);
+        boolean remove(Sim s);
+        Sim random(Random r);
+        int size();
+    }
+
+    /** Noms des opérations, par code {@link TraceRecorder}. */
+    private static final String[] NAMES = {"end", "add", "addAll", "poll", "set.add", "set.remove", "set.random"};
+
+    /* ===================== Candidats fournis ===================== */
+
+    /** {@code heap} ({@link PriorityQueueO}), {@code jdk} ({@link PriorityQueue}) ou {@code multi} ({@link MultiQueue}). */
+    public static EventQueue queue(String name) {
+        return switch (name) {
+            case "heap" -> {
+                PriorityQueueO<Entry> q = new PriorityQueueO<>(ORDER);
+                yield new EventQueue() {
+                    public void add(Entry e)               { q.add(e); }
+                    public Entry poll()                    { return q.poll(); }
+                    public int size()                      { return q.size(); }
+                    public void addAll(List<Entry> entries) { q.addAll(entries); }
+                };
+            }
+            case "jdk" -> {
+                PriorityQueue<Entry> q = new PriorityQueue<>(ORDER);
+                yield new EventQueue() {
+                    public void add(Entry e)               { q.add(e); }
+                    public Entry poll()                    { return q.poll(); }
+                    public int size()                      { return q.size(); }
+                    public void addAll(List<Entry> entries) { q.addAll(entries); }
+                };
+            }
+            case "multi" -> {
+                MultiQueue<Entry> q = new MultiQueue<>(2 * Runtime.getRuntime().availableProcessors(), ORDER);
+                yield new EventQueue() {
+                    public void add(Entry e)               { q.add(e); }
+                    public Entry poll()                    { return q.poll(); }
+                    public int size()                      { return q.size(); }
+                };
+            }
+            default -> throw new IllegalArgumentException("unknown queue: " + name);
+        };
+    }
+
+    /** L'ensemble du simulateur, {@link SimSet}. */
+    public static MatingSet simSet() {
+        SimSet set = new SimSet();
+        return new MatingSet() {
+            public boolean add(Sim s)      { return set.add(s); }
+            public boolean remove(Sim s)   { return set.remove(s); }
+            public Sim random(Random r)    { return set.random(r); }
+            public int size()              { return set.size(); }
+        };
+    }
+
+    /* ===================== Trace décodée ===================== */
+
+    /** Trace décodée : une case par opération (les entrées d'un {@code addAll} suivent la sienne). */
+    public static final class Trace {
+        private byte[] ops = new byte[1 << 12];
+        private int[] ids = new int[1 << 12];              // Sim, ou taille d'un addAll
+        private double[] times = new double[1 << 12];
+        private int length;
+        private final long[] counts = new long[NAMES.length];
+        private Sim[] sims;                                // Sims des ensembles, par identifiant - base
+        private int base;
+        private long bytes;
+
+        private void append(int op, int id, double time) {
+            if (length == ops.length) {
+                int n = length * 2;
+                ops = Arrays.copyOf(ops, n);
+                ids = Arrays.copyOf(ids, n);
+                times = Arrays.copyOf(times, n);
+            }
+            ops[length] = (byte) op;
+            ids[length] = id;
+            times[length++] = time;
+        }
+
+        /** Opérations enregistrées (un {@code addAll} compte pour une). */
+        public long operations() {
+            long n = 0;
+            for (long c : counts) n += c;
+            return n;
+        }
+
+        /** Nombre d'opérations {@code name} ({@code add}, {@code poll}, {@code set.add}…). */
+        public long count(String name) {
+            int op = Arrays.asList(NAMES).indexOf(name);
+            if (op < 0) throw new IllegalArgumentException("unknown operation: " + name);
+            return counts[op];
+        }
+
+        /** Taille de la trace sur disque, en octets. */
+        public long bytes() { return bytes; }
+    }
+
+    /** Décode une trace complète. */
+    public static Trace read(InputStream input) throws IOException {
+        CountingInput in = new CountingInput(input);
+        if (in.readInt() != TraceRecorder.MAGIC) throw new IOException("not a pedigree trace");
+        double quantum = Double.longBitsToDouble(in.readLong());
+        Trace t = new Trace();
+        long id = 0, time = 0;
+        int minSim = Integer.MAX_VALUE, maxSim = Integer.MIN_VALUE;
+        while (true) {
+            int header = in.readByte() & 0xFF;
+            int op = header & 7;
+            if (op == TraceRecorder.END) break;
+            if (op > TraceRecorder.SET_RANDOM) throw new IOException("bad trace operation: " + op);
+            t.counts[op]++;
+            switch (op) {
+                case TraceRecorder.ADD -> {
+                    id += unzigzag(in.readVarint());
+                    time += unzigzag(in.readVarint());
+                    t.append(header, (int) id, time * quantum);
+                }
+                case TraceRecorder.ADD_ALL -> {
+                    int m = (int) in.readVarint();
+                    t.append(header, m, 0.0);
+                    for (int k = 0; k < m; k++) {
+                        int kind = in.readByte() & 0xFF;
+                        id += unzigzag(in.readVarint());
+                        time += unzigzag(in.readVarint());
+                        t.append(TraceRecorder.ADD | kind << 3, (int) id, time * quantum);
+                    }
+                }
+                case TraceRecorder.SET_ADD, TraceRecorder.SET_REMOVE -> {
+                    id += unzigzag(in.readVarint());
+                    minSim = Math.min(minSim, (int) id);
+                    maxSim = Math.max(maxSim, (int) id);
+                    t.append(header, (int) id, 0.0);
+                }
+                default -> t.append(header, 0, 0.0);
+            }
+        }
+        t.bytes = in.count;
+        // un Sim par identifiant rencontré dans les ensembles ; seule l'identité compte
+        t.base = minSim;
+        t.sims = new Sim[maxSim >= minSim ? maxSim - minSim + 1 : 0];
+        for (int i = 0; i < t.length; i++) {
+            int op = t.ops[i] & 7;
+            if ((op == TraceRecorder.SET_ADD || op == TraceRecorder.SET_REMOVE) && t.sims[t.ids[i] - minSim] == null) {
+                t.sims[t.ids[i] - minSim] = new Sim(Sex.M);
+            }
+        }
+        return t;
+    }
+
+    /** Décode la trace {@code file}. */
+    public static Trace read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    private static long unzigzag(long v) {
+        return v >>> 1 ^ -(v & 1);
+    }
+
+    /** Lecture d'octets, d'entiers et de varints avec compte des octets lus. */
+    private static final class CountingInput {
+        private final DataInputStream in;
+        long count;
+
+        CountingInput(InputStream in) {
+            this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        }
+
+        byte readByte() throws IOException {
+            count++;
+            return in.readByte();
+        }
+
+        int readInt() throws IOException {
+            count += 4;
+            return in.readInt();
+        }
+
+        long readLong() throws IOException {
+            count += 8;
+            return in.readLong();
+        }
+
+        long readVarint() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new EOFException("malformed varint");
+        }
+    }
+
+    /* ===================== Rejeu ===================== */
+
+    /** Histogramme de latences (ns), à précision relative d'environ 3 %. */
+    public static final class Latency {
+        private static final int SUB = 32;             // sous-intervalles par puissance de 2
+        private final long[] buckets = new long[2 * SUB + (64 - 6) * SUB];
+        private long count, max;
+
+        void record(long nanos) {
+            long v = Math.max(0, nanos);
+            buckets[index(v)]++;
+            count++;
+            max = Math.max(max, v);
+        }
+
+        private static int index(long v) {
+            if (v < 2 * SUB) return (int) v;
+            int e = 63 - Long.numberOfLeadingZeros(v);    // ≥ 6
+            return 2 * SUB + (e - 6) * SUB + (int) ((v >>> (e - 5)) & (SUB - 1));
+        }
+
+        private static long lowerBound(int i) {
+            if (i < 2 * SUB) return i;
+            int e = (i - 2 * SUB) / SUB + 6;
+            return (long) (SUB + (i - 2 * SUB) % SUB) << (e - 5);
+        }
+
+        public long count() { return count; }
+        public long max()   { return max; }
+
+        /** Latence sous laquelle se trouve la fraction {@code p} des opérations (borne inférieure de l'intervalle). */
+        public long percentile(double p) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(p * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && buckets[i] > 0) return lowerBound(i);
+            }
+            return max;
+        }
+    }
+
+    private static long sink;                          // résultat des poll : pas d'élimination de code mort
+
+    /** Une passe à pleine vitesse ; renvoie le débit en opérations par seconde. */
+    public static double throughput(Trace t, Supplier<EventQueue> queue, Supplier<MatingSet> sets) {
+        long nanos = replay(t, queue.get(), newSets(sets), null);
+        return t.operations() / (nanos / 1e9);
+    }
+
+    /** Une passe chronométrée opération par opération ; latences par nom d'opération. */
+    public static Map<String, Latency> latencies(Trace t, Supplier<EventQueue> queue, Supplier<MatingSet> sets) {
+        Latency[] latency = new Latency[NAMES.length];
+        for (int i = 0; i < latency.length; i++) latency[i] = new Latency();
+        replay(t, queue.get(), newSets(sets), latency);
+        Map<String, Latency> byName = new LinkedHashMap<>();
+        for (int i = 1; i < NAMES.length; i++) {
+            if (latency[i].count() > 0) byName.put(NAMES[i], latency[i]);
+        }
+        return byName;
+    }
+
+    /** Rejoue {@code t} sur {@code q} et {@code sets} ; renvoie la durée en ns. */
+    static long replay(Trace t, EventQueue q, MatingSet[] sets, Latency[] latency) {
+        Random rnd = new Random(0L);
+        byte[] ops = t.ops;
+        int[] ids = t.ids;
+        double[] times = t.times;
+        Sim[] sims = t.sims;
+        int base = t.base;
+        List<Entry> batch = new ArrayList<>();
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < t.length; i++) {
+            int op = ops[i] & 7;
+            int arg = (ops[i] & 0xFF) >>> 3;
+            long t0 = latency == null ? 0L : System.nanoTime();
+            switch (op) {
+                case TraceRecorder.ADD -> q.add(new Entry(times[i], arg, ids[i]));
+                case TraceRecorder.ADD_ALL -> {
+                    int m = ids[i];
+                    batch.clear();
+                    for (int k = i + 1; k <= i + m; k++) batch.add(new Entry(times[k], (ops[k] & 0xFF) >>> 3, ids[k]));
+                    q.addAll(batch);
+                    i += m;
+                }
+                case TraceRecorder.POLL -> {
+                    Entry e = q.poll();
+                    if (e != null) checksum += e.id();
+                }
+                case TraceRecorder.SET_ADD -> sets[arg].add(sims[ids[i] - base]);
+                case TraceRecorder.SET_REMOVE -> sets[arg].remove(sims[ids[i] - base]);
+                case TraceRecorder.SET_RANDOM -> {
+                    Sim s = sets[arg].random(rnd);
+                    if (s != null) checksum += s.getIdent();
+                }
+                default -> throw new IllegalStateException("bad trace operation: " + op);
+            }
+            if (latency != null) latency[op].record(System.nanoTime() - t0);
+        }
+        long nanos = System.nanoTime() - start;
+        sink += checksum;
+        return nanos;
+    }
+
+    private static MatingSet[] newSets(Supplier<MatingSet> sets) {
+        return new MatingSet[] {sets.get(), sets.get(), sets.get()};   // males, females, availableMales
+    }
+
+    /** Coût d'une paire d'appels à {@link System#nanoTime}, en ns (minimum observé). */
+    private static long timerOverhead() {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 100_000; i++) {
+            long a = System.nanoTime();
+            best = Math.min(best, System.nanoTime() - a);
+        }
+        return best;
+    }
+
+    /* =================== Exécutable CLI =================== */
+
+    /**
+     * Débit et latences d'une file candidate sur une trace.
+     *
+     * @param args traceFile [queue] [runs] ; queue parmi {@code heap}, {@code jdk}, {@code multi}
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args.length > 0 ? args[0] : "simulation.trace");
+        String name = args.length > 1 ? args[1] : "heap";
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Trace trace = read(file);
+        queue(name);                                   // nom validé avant les mesures
+        System.out.printf(Locale.US, "%s: %d opérations (%d add, %d poll), %d octets%n", file,
+                trace.operations(), trace.count("add") + trace.count("addAll"), trace.count("poll"), trace.bytes());
+        for (int r = 1; r <= runs; r++) {
+            double rate = throughput(trace, () -> queue(name), TraceReplay::simSet);
+            System.out.printf(Locale.US, "%s passe %d : %.2f Mops/s%n", name, r, rate / 1e6);
+        }
+        Map<String, Latency> latencies = latencies(trace, () -> queue(name), TraceReplay::simSet);
+        System.out.printf(Locale.US, "latences (ns, mesure incluse : ~%d ns)%n", timerOverhead());
+        System.out.printf(Locale.US, "%-11s %12s %7s %7s %7s %7s %9s%n", "opération", "nombre", "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<String, Latency> e : latencies.entrySet()) {
+            Latency l = e.getValue();
+            System.out.printf(Locale.US, "%-11s %12d %7d %7d %7d %7d %9d%n", e.getKey(), l.count(),
+                    l.percentile(0.50), l.percentile(0.90), l.percentile(0.99), l.percentile(0.999), l.max());
+        }
+    }
+}
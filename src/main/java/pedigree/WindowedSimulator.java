@@ -0,0 +1,382 @@
+package pedigree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * WindowedSimulator : exécution parallèle conservatrice d'un {@link Simulator}.
+ * <p>Un nouveau-né ne peut pas se reproduire avant {@code MIN_MATING_AGE_F/M} :
+ * pendant une fenêtre de temps de longueur ≤ 16 ans, les tentatives de reproduction
+ * des mères sont donc indépendantes des naissances de la même fenêtre. Chaque fenêtre
+ * se déroule en cinq temps :</p>
+ * <ol>
+ *   <li>chaque partition retire de son tas les événements de la fenêtre (en parallèle) ;</li>
+ *   <li>chaque partition enchaîne les tentatives de ses mères jusqu'à la fin de la
+ *       fenêtre, le père étant tiré dans une copie figée de {@code availableMales} prise
+ *       au début de la fenêtre (complétée par les entrées et sorties de la fenêtre,
+ *       connues d'avance) ; sexe, durée de vie et première tentative de chaque enfant
+ *       sont tirés au passage, et la tentative suivante reste dans la partition
+ *       (en parallèle) ;</li>
+ *   <li>les naissances et les autres événements (morts, entrée/sortie de l'âge de
+ *       reproduction, échantillons) sont appliqués séquentiellement dans l'ordre
+ *       chronologique, à égalité dans l'ordre des partitions ;</li>
+ *   <li>les événements des nouveau-nés sont construits et rangés dans les tas des
+ *       partitions (en parallèle) ;</li>
+ *   <li>les morts précoces des nouveau-nés de la fenêtre sont appliquées comme en 1 et 3.</li>
+ * </ol>
+ * <p>Pendant {@link #run}, les événements en attente quittent la file du simulateur pour
+ * {@value #PARTITIONS} tas, remplis en tourniquet ; ils y reviennent à la fin. Le nombre
+ * de partitions et leurs générateurs ne dépendent que de la graine : le résultat est le
+ * même quel que soit le nombre de threads. Restent séquentiels : la mise à jour des
+ * ensembles de Sims et des compteurs démographiques, et le tri de fusion.</p>
+ * <p>Approximations par rapport à la boucle séquentielle : le bassin d'hommes et les
+ * couples formés par d'autres mères ne sont vus qu'à la fenêtre suivante. Les lois
+ * de naissance, de mort et de choix du partenaire sont inchangées.</p>
+ */
+public final class WindowedSimulator {
+
+    /** Nombre de partitions des événements, indépendant du nombre de threads. */
+    static final int PARTITIONS = 64;
+
+    /** Naissance décidée par une partition, appliquée à la phase séquentielle. */
+    private record BirthRecord(double time, Sim mother, Sim father, boolean newPair, Sim previous,
+                               Simulator.Newborn draw) {}
+
+    /**
+     * Hommes disponibles pendant la fenêtre : l'ensemble au début de la fenêtre plus ceux
+     * qui y entrent, chacun avec son intervalle de disponibilité [from, to) (jusqu'à sa
+     * sortie de l'âge de reproduction ou sa mort).
+     */
+    private record MalePool(Sim[] males, double[] from, double[] to) {
+        private static final int MAX_DRAWS = 32;
+
+        /** Tirage uniforme parmi les hommes disponibles à {@code time}, par rejet. */
+        Sim draw(double time, Random r) {
+            int n = males.length;
+            if (n == 0) return null;
+            for (int k = 0; k < MAX_DRAWS; k++) {
+                int i = r.nextInt(n);
+                if (from[i] <= time && time < to[i]) return males[i];
+            }
+            List<Sim> eligible = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (from[i] <= time && time < to[i]) eligible.add(males[i]);
+            }
+            return eligible.isEmpty() ? null : eligible.get(r.nextInt(eligible.size()));
+        }
+    }
+
+    /** Tas d'événements d'une partition et ce qu'elle produit pendant la fenêtre courante. */
+    private static final class Partition {
+        final int index;
+        final PriorityQueueO<Simulator.Event> queue = new PriorityQueueO<>(new Simulator.EventComparator());
+        final List<Simulator.Event> reproductions = new ArrayList<>();
+        final List<Simulator.Event> others = new ArrayList<>();
+        final List<BirthRecord> births = new ArrayList<>();
+        final List<Sim> newborns = new ArrayList<>();
+        final List<Simulator.Newborn> draws = new ArrayList<>();
+
+        Partition(int index) {
+            this.index = index;
+        }
+    }
+
+    private final Simulator sim;
+    private final int threads;
+    private final double window;
+    private final long seed;
+    private final Partition[] partitions = new Partition[PARTITIONS];
+    private int nextPartition;                  // tourniquet de répartition
+
+    public WindowedSimulator(Simulator sim, int threads, double window, long seed) {
+        double lookahead = Math.min(Sim.MIN_MATING_AGE_F, Sim.MIN_MATING_AGE_M);
+        if (threads < 1) throw new IllegalArgumentException("at least one thread required");
+        if (!(window > 0.0 && window <= lookahead))
+            throw new IllegalArgumentException("window must be in (0, " + lookahead + "]");
+        this.sim = sim;
+        this.threads = threads;
+        this.window = window;
+        this.seed = seed;
+    }
+
+    public WindowedSimulator(Simulator sim, int threads, long seed) {
+        this(sim, threads, Math.min(Sim.MIN_MATING_AGE_F, Sim.MIN_MATING_AGE_M), seed);
+    }
+
+    /** Avance la simulation jusqu'à {@code horizon} (événements à l'horizon inclus). */
+    public void run(double horizon) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int p = 0; p < PARTITIONS; p++) partitions[p] = new Partition(p);
+        nextPartition = 0;
+        distribute(sim.drainEvents());
+        try {
+            double start = sim.getTime();
+            long index = 0;
+            while (start < horizon && pending() > 0) {
+                double end = Math.min(start + window, horizon);
+                processWindow(pool, start, end, end >= horizon, index++);
+                start = end;
+            }
+            sim.setTime(horizon);
+        } finally {
+            pool.shutdownNow();
+            List<Simulator.Event> rest = new ArrayList<>(pending());
+            for (Partition p : partitions) rest.addAll(p.queue.toList());
+            sim.scheduleAll(rest);
+        }
+    }
+
+    private static boolean inWindow(double t, double end, boolean last) {
+        return t < end || (last && t == end);
+    }
+
+    private int pending() {
+        int n = 0;
+        for (Partition p : partitions) n += p.queue.size();
+        return n;
+    }
+
+    /** Range des événements dans les partitions, en tourniquet. */
+    private void distribute(List<Simulator.Event> events) {
+        for (Simulator.Event e : events) {
+            partitions[nextPartition].queue.add(e);
+            nextPartition = (nextPartition + 1) % PARTITIONS;
+        }
+    }
+
+    /** Applique {@code task} à chaque partition, réparties entre les threads, et attend la fin. */
+    private void forEachPartition(ExecutorService pool, Consumer<Partition> task) throws InterruptedException {
+        int tasks = Math.min(threads, PARTITIONS);
+        List<Future<?>> futures = new ArrayList<>(tasks);
+        for (int k = 0; k < tasks; k++) {
+            int first = k;
+            futures.add(pool.submit(() -> {
+                for (int p = first; p < PARTITIONS; p += tasks) task.accept(partitions[p]);
+            }));
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("window worker failed", ex.getCause());
+            }
+        }
+    }
+
+    /**
+     * Retire de chaque partition les événements de la fenêtre, dans l'ordre de son tas ;
+     * les tentatives à part si {@code split}.
+     */
+    private void collect(ExecutorService pool, double end, boolean last, boolean split) throws InterruptedException {
+        forEachPartition(pool, p -> {
+            p.reproductions.clear();
+            p.others.clear();
+            while (!p.queue.isEmpty() && inWindow(p.queue.peek().getTime(), end, last)) {
+                Simulator.Event e = p.queue.poll();
+                (split && e.getEvent() == Simulator.Events.Reproduction ? p.reproductions : p.others).add(e);
+            }
+        });
+    }
+
+    /** Événements {@code others} des partitions, dans l'ordre chronologique. */
+    private List<Simulator.Event> merged(ExecutorService pool, double start, double end) throws InterruptedException {
+        return merge(pool, start, end, p -> p.others, Simulator.Event::getTime, new Simulator.EventComparator());
+    }
+
+    /**
+     * Fusionne les listes {@code runs} des partitions, chacune déjà triée selon {@code order}
+     * (compatible avec {@code time}) : le résultat est celui d'un tri stable de leur
+     * concaténation dans l'ordre des partitions. La fenêtre [start, end] est découpée en
+     * tranches de temps égales ; chaque tranche est rassemblée et triée en parallèle à sa
+     * place dans le résultat.
+     */
+    private <T> List<T> merge(ExecutorService pool, double start, double end, Function<Partition, List<T>> runs,
+                              ToDoubleFunction<T> time, Comparator<T> order) throws InterruptedException {
+        int slices = PARTITIONS;
+        double width = (end - start) / slices;
+        int[][] bounds = new int[PARTITIONS][slices + 1];    // début de chaque tranche dans chaque partition
+        forEachPartition(pool, p -> {
+            List<T> run = runs.apply(p);
+            int[] b = bounds[p.index];
+            for (int k = 1; k < slices; k++) b[k] = lowerBound(run, time, start + k * width);
+            b[slices] = run.size();
+        });
+        int[] offsets = new int[slices + 1];
+        for (int k = 0; k < slices; k++) {
+            int n = 0;
+            for (int q = 0; q < PARTITIONS; q++) n += bounds[q][k + 1] - bounds[q][k];
+            offsets[k + 1] = offsets[k] + n;
+        }
+        @SuppressWarnings("unchecked")
+        T[] all = (T[]) new Object[offsets[slices]];
+        forEachPartition(pool, slice -> {
+            int k = slice.index;                            // une tranche par partition
+            int at = offsets[k];
+            for (int q = 0; q < PARTITIONS; q++) {
+                List<T> run = runs.apply(partitions[q]);
+                for (int i = bounds[q][k]; i < bounds[q][k + 1]; i++) all[at++] = run.get(i);
+            }
+            Arrays.sort(all, offsets[k], offsets[k + 1], order);   // tri stable
+        });
+        return Arrays.asList(all);
+    }
+
+    /** Premier indice de {@code run} (trié) dont la date est ≥ {@code t}. */
+    private static <T> int lowerBound(List<T> run, ToDoubleFunction<T> time, double t) {
+        int lo = 0, hi = run.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (time.applyAsDouble(run.get(mid)) < t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void processWindow(ExecutorService pool, double start, double end, boolean last, long index)
+            throws InterruptedException {
+        // (1) événements de la fenêtre
+        collect(pool, end, last, true);
+
+        // (2) tentatives de reproduction et tirage des enfants, en parallèle
+        MalePool males = pool();
+        List<Simulator.Event> others = merged(pool, start, end);
+        forEachPartition(pool, p -> {
+            p.births.clear();
+            if (p.reproductions.isEmpty()) return;
+            Random r = new Random(seed ^ (index * 0x9E3779B97F4A7C15L) ^ p.index);
+            reproduce(p, end, last, males, r);
+            p.births.sort(Comparator.comparingDouble(BirthRecord::time));      // tri stable
+        });
+        List<BirthRecord> births = merge(pool, start, end, p -> p.births, BirthRecord::time,
+                Comparator.comparingDouble(BirthRecord::time));
+
+        // (3) application séquentielle, dans l'ordre chronologique
+        for (Partition p : partitions) {
+            p.newborns.clear();
+            p.draws.clear();
+        }
+        int i = 0, j = 0;
+        while (i < others.size() || j < births.size()) {
+            if (j == births.size() || (i < others.size() && others.get(i).getTime() <= births.get(j).time())) {
+                Simulator.Event e = others.get(i++);
+                sim.setTime(e.getTime());
+                sim.dispatch(e);
+            } else {
+                BirthRecord b = births.get(j++);
+                sim.setTime(b.time());
+                if (b.newPair()) sim.formPair(b.mother(), b.father(), b.previous());
+                Sim child = sim.Birth(b.mother(), b.father(), b.draw());
+                if (child != null) {
+                    Partition p = partitions[nextPartition];
+                    nextPartition = (nextPartition + 1) % PARTITIONS;
+                    p.newborns.add(child);
+                    p.draws.add(b.draw());
+                }
+            }
+        }
+
+        // (4) événements des nouveau-nés, en parallèle ; ceux planifiés par le simulateur (échantillons)
+        forEachPartition(pool, p -> {
+            List<Simulator.Event> events = new ArrayList<>(4 * p.newborns.size());
+            for (int k = 0; k < p.newborns.size(); k++) sim.newbornEvents(p.newborns.get(k), p.draws.get(k), events);
+            for (Simulator.Event e : events) p.queue.add(e);
+        });
+        distribute(sim.drainEvents());
+
+        // (5) morts précoces des nouveau-nés de la fenêtre
+        collect(pool, end, last, false);
+        for (Simulator.Event e : merged(pool, start, end)) {
+            sim.setTime(Math.max(sim.getTime(), e.getTime()));
+            sim.dispatch(e);
+        }
+        distribute(sim.drainEvents());
+        sim.setTime(end);
+    }
+
+    /**
+     * Copie figée de {@code availableMales}, complétée par les entrées de la fenêtre (dans
+     * l'ordre des partitions). La sortie de l'âge de reproduction est à date fixe depuis
+     * la naissance : elle n'a pas besoin d'être lue dans la file.
+     */
+    private MalePool pool() {
+        Sim[] start = sim.availableMalesSnapshot();
+        List<Simulator.Event> entering = new ArrayList<>();
+        for (Partition p : partitions) {
+            for (Simulator.Event e : p.others) {
+                if (e.getEvent() == Simulator.Events.EntersMatingAge) entering.add(e);
+            }
+        }
+        int n = start.length + entering.size();
+        Sim[] males = new Sim[n];
+        double[] from = new double[n];
+        double[] to = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (i < start.length) {
+                males[i] = start[i];
+                from[i] = Double.NEGATIVE_INFINITY;
+            } else {
+                Simulator.Event e = entering.get(i - start.length);
+                males[i] = e.getSim();
+                from[i] = e.getTime();
+            }
+            to[i] = Math.min(males[i].getBirthTime() + Sim.MAX_MATING_AGE_M, males[i].getDeathTime());
+        }
+        return new MalePool(males, from, to);
+    }
+
+    /**
+     * Enchaîne les tentatives de chaque mère de la partition jusqu'à la fin de la fenêtre ;
+     * la tentative suivante retourne dans le tas de la partition. Seul le champ {@code mate}
+     * de la mère est écrit ici ; celui du père l'est à la phase séquentielle
+     * ({@link Simulator#formPair}), le couple compte déjà pour la mère.
+     */
+    private void reproduce(Partition part, double end, boolean last, MalePool males, Random r) {
+        double fidelity = sim.getFidelity();
+        for (Simulator.Event e : part.reproductions) {
+            Sim mother = e.getSim();
+            double time = e.getTime();
+            boolean pairedHere = false;     // couple formé dans cette fenêtre : le père n'est pas encore lié
+            while (mother.getDeathTime() >= time) {
+                if (mother.isMatingAge(time)) {
+                    Sim father;
+                    Sim previous = mother.getMate();
+                    boolean newPair = false;
+                    boolean paired = pairedHere
+                            ? previous.getDeathTime() > time
+                            : mother.isInARelationship(time);
+                    if (paired && r.nextDouble() > fidelity) {
+                        father = previous;
+                    } else {
+                        father = males.draw(time, r);
+                        if (father != null) {
+                            mother.setMate(father);
+                            newPair = true;
+                            pairedHere = true;
+                        }
+                    }
+                    if (father != null) {
+                        part.births.add(new BirthRecord(time, mother, father, newPair, previous, sim.drawNewborn(r)));
+                    }
+                }
+                double nextTime = sim.nextReproduction(mother, time, r);
+                if (!(nextTime > 0 && nextTime < mother.getDeathTime()
+                        && time - mother.getBirthTime() < Sim.MAX_MATING_AGE_F)) break;
+                if (!inWindow(nextTime, end, last)) {
+                    part.queue.add(sim.new Event(Simulator.Events.Reproduction, mother, nextTime));
+                    break;
+                }
+                time = nextTime;
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package pedigree;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A man leaves the pool of available partners when he dies, not only when he
+ * exits the mating age: no dead man stays in availableMales and no child is
+ * fathered after the father's death, in the sequential and windowed engines.
+ */
+@Timeout(60)
+public class AvailableMalesTest {
+
+    private static final int FOUNDERS = 2000;
+    private static final double HORIZON = 600.0;
+
+    private static void assertFathersAlive(Simulator sim) {
+        int checked = 0;
+        for (Sim s : sim.getLivingPopulation()) {
+            Sim father = s.getFather();
+            if (father == null) continue;
+            assertTrue(father.getDeathTime() >= s.getBirthTime(),
+                    "father " + father + " died at " + father.getDeathTime() + ", child born at " + s.getBirthTime());
+            checked++;
+        }
+        assertTrue(checked > 0);
+    }
+
+    /**
+     * Le défaut du modèle direct, réduit à un homme : mort à 30 ans, il restait dans
+     * availableMales jusqu'à sa sortie de l'âge de reproduction (65 ans) et pouvait
+     * encore être tiré comme père.
+     */
+    @Test
+    @DisplayName("Un homme mort à 30 ans n'est plus tiré comme père")
+    void deadManIsNeverDrawn() {
+        Simulator sim = new Simulator(6L, HORIZON);
+        Sim man = new Sim(Sim.Sex.M);
+        man.setDeath(30.0);
+        sim.setTime(Sim.MIN_MATING_AGE_M);
+        sim.EntersMatingAge(man);
+        assertEquals(1, sim.availableMalesSnapshot().length);
+
+        sim.setTime(30.0);
+        sim.Death(man);
+        assertEquals(0, sim.availableMalesSnapshot().length, "dead man still available");
+        sim.setTime(40.0);
+        Sim woman = new Sim(Sim.Sex.F);
+        woman.setDeath(80.0);
+        assertNull(sim.Mate(woman), "a dead man was drawn as father");
+    }
+
+    @Test
+    @DisplayName("Boucle séquentielle : un mort quitte aussitôt les partenaires disponibles")
+    void deathLeavesPoolSequential() {
+        Simulator sim = new Simulator(6L, HORIZON);
+        sim.addFounders(FOUNDERS);
+        for (double t = 100.0; t <= HORIZON; t += 100.0) {
+            sim.run(t);
+            for (Sim m : sim.availableMalesSnapshot()) {
+                assertTrue(m.getDeathTime() >= sim.getTime(), "dead man " + m + " still available at " + sim.getTime());
+            }
+            assertFathersAlive(sim);
+        }
+    }
+
+    @Test
+    @DisplayName("Fenêtres parallèles : disponibilité bornée par la mort")
+    void deathLeavesPoolWindowed() throws InterruptedException {
+        Simulator sim = new Simulator(6L, HORIZON);
+        sim.addFounders(FOUNDERS);
+        new WindowedSimulator(sim, 4, 6L).run(HORIZON);
+        assertFathersAlive(sim);
+    }
+}
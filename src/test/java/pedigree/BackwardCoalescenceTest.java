@@ -0,0 +1,77 @@
+package pedigree;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Backward sparse coalescence: curve shape, agreement with the forward
+ * simulator on the same population size (seeded founders), whole-population
+ * samples despite rounding, and cost independent of the
+ * population for a small sample.
+ */
+public class BackwardCoalescenceTest {
+
+    private static int lineagesAt(List<Coalescence.Point> curve, double time) {
+        int n = curve.get(0).lineages();
+        for (Coalescence.Point p : curve) {
+            if (p.time() >= time) n = p.lineages();
+        }
+        return n;
+    }
+
+    @Test
+    @DisplayName("Courbe décroissante à rebours depuis l'échantillon")
+    void curveIsMonotone() {
+        List<Coalescence.Point> curve = new BackwardCoalescence(5000).maternal(500, 4000.0, 1L);
+        assertEquals(new Coalescence.Point(4000.0, 500), curve.get(0));
+        for (int i = 1; i < curve.size(); i++) {
+            assertTrue(curve.get(i).time() <= curve.get(i - 1).time());
+            assertEquals(curve.get(i - 1).lineages() - 1, curve.get(i).lineages());
+        }
+    }
+
+    @Test
+    @DisplayName("Comparable à la coalescence du simulateur vers l'avant")
+    void matchesForwardSimulation() {
+        final double HORIZON = 1000.0;
+        Simulator sim = new Simulator(4L, HORIZON);
+        sim.addFounders(2000);
+        sim.run();
+        int n = sim.getPopulation();
+        BackwardCoalescence backward = new BackwardCoalescence(n);
+        List<Coalescence.Point> bp = backward.paternal(n, HORIZON, 4L);
+        List<Coalescence.Point> bm = backward.maternal(n, HORIZON, 5L);
+        List<Coalescence.Point> fp = Coalescence.paternal(sim, HORIZON);
+        List<Coalescence.Point> fm = Coalescence.maternal(sim, HORIZON);
+        for (double back : new double[] {100.0, 300.0}) {
+            double t = HORIZON - back;
+            assertEquals(lineagesAt(fp, t), lineagesAt(bp, t), 0.3 * lineagesAt(fp, t), "paternal at " + t);
+            assertEquals(lineagesAt(fm, t), lineagesAt(bm, t), 0.3 * lineagesAt(fm, t), "maternal at " + t);
+        }
+    }
+
+    @Test
+    @DisplayName("Toute la population peut former l'échantillon, malgré l'arrondi de l'effectif attendu")
+    void wholePopulationSample() {
+        // tailles pour lesquelles l'effectif attendu tombe juste sous l'entier (1501,999…)
+        for (int n : new int[] {1502, 1716, 2005}) {
+            BackwardCoalescence backward = new BackwardCoalescence(n);
+            assertEquals(n, backward.maternal(n, 200.0, 1L).get(0).lineages());
+            assertThrows(IllegalArgumentException.class, () -> backward.maternal(n + 1, 200.0, 1L));
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("Coût lié à l'échantillon, pas à la population")
+    void smallSampleOfHugePopulation() {
+        List<Coalescence.Point> curve = new BackwardCoalescence(100_000_000).paternal(100, 20000.0, 7L);
+        // ~100 lignées × 20000 ans / ~30 ans par génération : quelques dizaines de milliers de tirages
+        assertEquals(new Coalescence.Point(20000.0, 100), curve.get(0));
+    }
+}
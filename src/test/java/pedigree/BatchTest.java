@@ -0,0 +1,65 @@
+package pedigree;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batch mode: job file parsing, one CSV per job in the format of a
+ * single-job run, and duplicate job names rejected before anything runs.
+ */
+public class BatchTest {
+
+    @Test
+    @DisplayName("Fichier de tâches : une sortie par tâche")
+    void runsEveryJob(@TempDir Path dir) throws Exception {
+        Path jobs = dir.resolve("sweep.jobs");
+        Files.writeString(jobs, """
+                # founders horizon seed [name]
+                200 300 1
+
+                200 300 2 second
+                """);
+        List<Batch.Job> parsed = Batch.parse(jobs);
+        assertEquals(List.of(new Batch.Job(200, 300.0, 1L, "sim_0"),
+                             new Batch.Job(200, 300.0, 2L, "second")), parsed);
+
+        assertEquals(0, Batch.run(parsed, dir.resolve("out"), 2));
+        for (String name : new String[] {"sim_0", "second"}) {
+            List<String> lines = Files.readAllLines(dir.resolve("out").resolve(name + ".csv"));
+            assertEquals("time,population", lines.get(0));
+            assertTrue(lines.contains("time,paternal,maternal"), name);
+        }
+    }
+
+    @Test
+    @DisplayName("Ligne de tâche invalide")
+    void rejectsMalformedLines(@TempDir Path dir) throws Exception {
+        Path jobs = dir.resolve("bad.jobs");
+        Files.writeString(jobs, "200 300\n");
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> Batch.parse(jobs));
+        assertTrue(ex.getMessage().contains(":1:"), ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Noms de tâche en double refusés : ils écriraient le même fichier")
+    void rejectsDuplicateNames(@TempDir Path dir) throws Exception {
+        Path jobs = dir.resolve("dup.jobs");
+        Files.writeString(jobs, "200 300 1 run\n200 300 2 run\n");
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> Batch.parse(jobs));
+        assertTrue(ex.getMessage().contains(":2:"), ex.getMessage());
+
+        Files.writeString(jobs, "200 300 1\n200 300 2 sim_0\n");   // nom par défaut de la première
+        assertThrows(IllegalArgumentException.class, () -> Batch.parse(jobs));
+
+        List<Batch.Job> twins = List.of(new Batch.Job(200, 300.0, 1L, "run"), new Batch.Job(200, 300.0, 2L, "run"));
+        assertThrows(IllegalArgumentException.class, () -> Batch.run(twins, dir.resolve("out"), 1));
+        assertFalse(Files.exists(dir.resolve("out")), "nothing ran");
+    }
+}
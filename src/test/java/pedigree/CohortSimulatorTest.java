@@ -0,0 +1,128 @@
+package pedigree;
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cohort (tau-leaping) mode: the binomial and Poisson samplers have the right
+ * mean and variance in each regime, conditional lifespans never end before the
+ * age reached, the switch to exact events fires on the first step under the
+ * threshold, and the trajectory follows the exact Simulator for the same seed.
+ */
+@Timeout(60)
+public class CohortSimulatorTest {
+
+    private static final int DRAWS = 50_000;
+
+    /** Moyenne et variance empiriques de {@code DRAWS} tirages. */
+    private static double[] moments(LongSupplier draw) {
+        double sum = 0.0, sq = 0.0;
+        for (int i = 0; i < DRAWS; i++) {
+            long x = draw.getAsLong();
+            sum += x;
+            sq += (double) x * x;
+        }
+        double mean = sum / DRAWS;
+        return new double[] {mean, sq / DRAWS - mean * mean};
+    }
+
+    @Test
+    @DisplayName("Binomiale : moyenne np et variance np(1-p), dans les trois régimes")
+    void binomialMoments() {
+        Random rnd = new Random(1L);
+        long n = 1000;
+        for (double p : new double[] {0.01, 0.3, 0.8}) {       // attentes géométriques, normale, complément
+            double[] m = moments(() -> CohortSimulator.binomial(rnd, n, p));
+            assertEquals(n * p, m[0], 0.02 * n * p, "mean p=" + p);
+            assertEquals(n * p * (1.0 - p), m[1], 0.05 * n * p * (1.0 - p), "variance p=" + p);
+        }
+        assertEquals(0L, CohortSimulator.binomial(rnd, 0, 0.5));
+        assertEquals(0L, CohortSimulator.binomial(rnd, n, 0.0));
+        assertEquals(n, CohortSimulator.binomial(rnd, n, 1.0));
+    }
+
+    @Test
+    @DisplayName("Poisson : moyenne et variance λ, petit et grand λ")
+    void poissonMoments() {
+        Random rnd = new Random(2L);
+        for (double lambda : new double[] {4.0, 250.0}) {      // produit d'uniformes, normale
+            double[] m = moments(() -> CohortSimulator.poisson(rnd, lambda));
+            assertEquals(lambda, m[0], 0.02 * lambda, "mean λ=" + lambda);
+            assertEquals(lambda, m[1], 0.05 * lambda, "variance λ=" + lambda);
+        }
+        assertEquals(0L, CohortSimulator.poisson(rnd, 0.0));
+    }
+
+    @Test
+    @DisplayName("Durée de vie conditionnelle : jamais avant l'âge atteint, survie S(a+10)/S(a)")
+    void randomAgeIsConditional() {
+        AgeModel model = new AgeModel();
+        Random rnd = new Random(3L);
+        for (double age : new double[] {0.0, 15.5, 40.0, 80.0, 105.0}) {
+            int beyond = 0;
+            for (int i = 0; i < DRAWS; i++) {
+                double d = model.randomAge(rnd, age);
+                assertTrue(d >= age, "lifespan " + d + " < age " + age);
+                if (d > age + 10.0) beyond++;
+            }
+            double expected = model.getSurvival(age + 10.0) / model.getSurvival(age);
+            assertEquals(expected, beyond / (double) DRAWS, 0.01, "age " + age);
+        }
+    }
+
+    private static CohortSimulator cohort(double horizon, int threshold) {
+        CohortSimulator c = new CohortSimulator(5L, horizon, threshold);
+        c.addFounders(2000);
+        c.run();
+        return c;
+    }
+
+    @Test
+    @DisplayName("Bascule vers le mode exact au premier pas sous le seuil")
+    void switchesAtThreshold() {
+        // fondateurs nouveau-nés : la population baisse jusqu'aux premières naissances
+        long[] pop = new long[13];
+        for (int t = 0; t < pop.length; t++) {
+            CohortSimulator c = cohort(t, 0);
+            assertNull(c.getExact());
+            pop[t] = c.getPopulation();
+        }
+        for (int t = 1; t < pop.length; t++) assertTrue(pop[t] < pop[t - 1]);
+
+        int threshold = (int) pop[10];                         // atteint à t = 10, franchi à t = 11
+        assertNull(cohort(11.0, threshold).getExact(), "still above the threshold up to t = 10");
+        CohortSimulator switched = cohort(12.0, threshold);
+        assertNotNull(switched.getExact(), "switch at t = 11");
+        assertEquals(12.0, switched.getTime());
+
+        CohortSimulator immediate = cohort(1.0, 2001);
+        assertNotNull(immediate.getExact(), "founders already under the threshold");
+    }
+
+    @Test
+    @DisplayName("Trajectoire proche du simulateur exact, même graine")
+    void followsExactSimulator() {
+        long seed = 1L;
+        double horizon = 1000.0;
+        Simulator exact = new Simulator(seed, horizon);
+        exact.addFounders(10_000);
+        exact.run(horizon);
+        exact.setTime(horizon);
+        exact.recordSample();
+
+        CohortSimulator approx = new CohortSimulator(seed, horizon, 1000);
+        approx.addFounders(10_000);
+        approx.run();
+
+        assertEquals(exact.getPopSamples().size(), approx.getPopSamples().size());
+        double error = CohortSimulator.trajectoryError(approx.getPopSamples(), exact.getPopSamples());
+        // dérive d'un processus critique : 5 à 20 % selon la graine ; ici 4,9 %
+        assertTrue(error < 0.08, "relative RMS error " + error);
+    }
+}
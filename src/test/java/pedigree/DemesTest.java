@@ -0,0 +1,71 @@
+package pedigree;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a small island model on several threads and checks that the
+ * window/exchange protocol terminates, yields a usable merged pedigree, and
+ * gives the same run for the same seed whatever the thread timing.
+ */
+@Timeout(30)
+public class DemesTest {
+
+    @Test
+    @DisplayName("Plusieurs dèmes avec migration jusqu'à l'horizon")
+    void demesRunToHorizonWithMigration() throws InterruptedException {
+        final double HORIZON = 300.0;
+        Demes demes = new Demes(4, 0.2, 7L, HORIZON, 16.0, 8); // petites files : force la contre-pression
+        demes.addFounders(300);
+        demes.run();
+
+        for (int i = 0; i < demes.size(); i++) {
+            assertEquals(HORIZON, demes.getDeme(i).getTime(), 1e-9, "chaque dème atteint l'horizon");
+        }
+        List<Simulator.PointPop> samples = demes.getPopSamples();
+        assertEquals(4, samples.size(), "jalons 0, 100, 200, 300");
+        assertTrue(samples.get(samples.size() - 1).pop() > 0);
+
+        Collection<Sim> living = demes.getLivingPopulation();
+        assertFalse(living.isEmpty());
+        List<Coalescence.Point> mat = Coalescence.maternal(living, HORIZON);
+        assertEquals(living.size(), mat.get(0).lineages());
+        for (int i = 1; i < mat.size(); i++) {
+            assertTrue(mat.get(i).lineages() < mat.get(i - 1).lineages());
+        }
+    }
+
+    private static Demes island(long seed) throws InterruptedException {
+        Demes demes = new Demes(4, 0.2, seed, 300.0, 16.0, 8);
+        demes.addFounders(300);
+        demes.run();
+        return demes;
+    }
+
+    @Test
+    @DisplayName("Même graine, même simulation, quel que soit l'ordre d'arrivée des migrants")
+    void migrationIsReproducible() throws InterruptedException {
+        for (int run = 0; run < 3; run++) {
+            Demes a = island(11L), b = island(11L);
+            assertEquals(a.getPopSamples(), b.getPopSamples());
+            for (int i = 0; i < a.size(); i++) {
+                assertEquals(a.getDeme(i).getBirths(), b.getDeme(i).getBirths(), "deme " + i);
+                assertEquals(a.getDeme(i).getPopulation(), b.getDeme(i).getPopulation(), "deme " + i);
+            }
+            assertEquals(Coalescence.maternal(a.getLivingPopulation(), 300.0),
+                    Coalescence.maternal(b.getLivingPopulation(), 300.0));
+        }
+    }
+
+    @Test
+    void intervalBeyondLookaheadIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Demes(2, 0.1, 1L, 100.0, Sim.MIN_MATING_AGE_F + 1.0, 16));
+    }
+}
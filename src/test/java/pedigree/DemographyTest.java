@@ -0,0 +1,68 @@
+package pedigree;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the incrementally maintained demographic counters against a full
+ * scan of the living population at every scheduled sample.
+ */
+@Timeout(30)
+public class DemographyTest {
+
+    @Test
+    @DisplayName("Compteurs incrémentaux = parcours de la population vivante")
+    void incrementalCountersMatchScan() {
+        final double HORIZON = 400.0;
+        Simulator sim = new Simulator(5L, HORIZON);
+        for (int i = 0; i < 1000; i++) {
+            sim.scheduleBirthEvent(new Sim(Sim.Sex.getSex()));
+        }
+        int[] checked = {0};
+        sim.addEventObserver(new Simulator.Observer() {
+            @Override
+            public void onEvent(Simulator s, Simulator.Event e) {
+                if (e.getEvent() != Simulator.Events.Sample) return;
+                List<Demography.Sample> samples = s.getDemographicSamples();
+                Demography.Sample d = samples.get(samples.size() - 1);
+                assertEquals(e.getTime(), d.time());
+                assertScanMatches(s.getLivingPopulation(), d);
+                checked[0]++;
+            }
+        });
+        sim.run();
+        assertEquals(5, checked[0], "jalons 0, 100, 200, 300, 400");
+        assertEquals(1000, sim.getPopSamples().get(0).pop(), "l'échantillon à 0 suit les fondateurs");
+    }
+
+    private static void assertScanMatches(Collection<Sim> living, Demography.Sample d) {
+        double t = d.time();
+        int males = 0, females = 0, fertile = 0, pairs = 0;
+        int[] maleAges = new int[d.maleAges().length];
+        int[] femaleAges = new int[d.femaleAges().length];
+        for (Sim s : living) {
+            int bucket = (int) Math.floor(t - s.getBirthTime()) / d.bucketYears();
+            if (s.getSex() == Sim.Sex.M) {
+                males++;
+                maleAges[bucket]++;
+            } else {
+                females++;
+                femaleAges[bucket]++;
+                if (s.isMatingAge(t)) fertile++;
+                if (s.isInARelationship(t)) pairs++;
+            }
+        }
+        assertEquals(males, d.males());
+        assertEquals(females, d.females());
+        assertEquals(fertile, d.fertileFemales());
+        assertEquals(pairs, d.matedPairs());
+        assertArrayEquals(maleAges, d.maleAges());
+        assertArrayEquals(femaleAges, d.femaleAges());
+    }
+}
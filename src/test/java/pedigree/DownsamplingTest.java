@@ -0,0 +1,185 @@
+package pedigree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streaming coalescence output: the lazy streams match the batch lists,
+ * time-bin and LTTB downsampling stay within their point budget and keep the
+ * end points, streaming LTTB matches the textbook batch version, the two
+ * curves merge on time, and rows are printed as they are merged.
+ */
+@Timeout(30)
+public class DownsamplingTest {
+
+    private static <T> List<T> drain(Iterator<T> it) {
+        List<T> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    /** Coalescence complète synthétique : n lignées au temps {@code top}, une fusion par point. */
+    private static List<Coalescence.Point> fullCurve(int n, double top, long seed) {
+        Random rnd = new Random(seed);
+        List<Coalescence.Point> curve = new ArrayList<>();
+        double t = top;
+        for (int i = 0; i < n; i++) {
+            curve.add(new Coalescence.Point(t, n - i));
+            t -= rnd.nextDouble() * rnd.nextDouble() * 2.0 * top / n;
+        }
+        return curve;
+    }
+
+    /** LTTB par lots (Steinarsson, 2013), référence. */
+    private static List<Coalescence.Point> batchLttb(List<Coalescence.Point> data, int threshold) {
+        int n = data.size();
+        if (n <= threshold) return data;
+        List<Coalescence.Point> sampled = new ArrayList<>();
+        double every = (n - 2) / (double) (threshold - 2);
+        Coalescence.Point a = data.get(0);
+        sampled.add(a);
+        for (int i = 0; i < threshold - 2; i++) {
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double ct = 0.0, cn = 0.0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                ct += data.get(j).time();
+                cn += data.get(j).lineages();
+            }
+            ct /= avgEnd - avgStart;
+            cn /= avgEnd - avgStart;
+            int start = (int) Math.floor(i * every) + 1;
+            int end = (int) Math.floor((i + 1) * every) + 1;
+            Coalescence.Point best = null;
+            double bestArea = -1.0;
+            for (int j = start; j < end; j++) {
+                Coalescence.Point p = data.get(j);
+                double area = Math.abs((a.time() - ct) * (p.lineages() - a.lineages())
+                        - (a.time() - p.time()) * (cn - a.lineages()));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = p;
+                }
+            }
+            sampled.add(best);
+            a = best;
+        }
+        sampled.add(data.get(n - 1));
+        return sampled;
+    }
+
+    @Test
+    @DisplayName("Les flux redonnent exactement les listes")
+    void streamsMatchLists() {
+        Simulator sim = new Simulator(3L, 1500.0);
+        sim.addFounders(400);
+        sim.run(1500.0);
+        assertEquals(Coalescence.paternal(sim, 1500.0),
+                drain(Coalescence.paternalStream(sim.getLivingPopulation(), 1500.0)));
+        assertEquals(Coalescence.maternal(sim, 1500.0),
+                drain(Coalescence.maternalStream(sim.getLivingPopulation(), 1500.0)));
+    }
+
+    @Test
+    @DisplayName("LTTB en flux identique à la version par lots")
+    void streamingLttbMatchesBatch() {
+        List<Coalescence.Point> curve = fullCurve(1002, 20000.0, 7L);
+        for (int threshold : new int[] {3, 52, 101, 1002, 2000}) {
+            assertEquals(batchLttb(curve, threshold), drain(Downsampling.lttb(curve.iterator(), threshold)),
+                    "threshold=" + threshold);
+        }
+    }
+
+    @Test
+    @DisplayName("Budget de points respecté ; premier et dernier points conservés")
+    void boundedAndKeepsEndPoints() {
+        Simulator sim = new Simulator(5L, 3000.0);
+        sim.addFounders(2000);
+        sim.run(3000.0);
+        List<Coalescence.Point> full = Coalescence.maternal(sim, 3000.0);
+        List<Coalescence.Point> synthetic = fullCurve(5000, 3000.0, 9L);
+        for (List<Coalescence.Point> curve : List.of(full, synthetic)) {
+            for (int points : new int[] {3, 10, 97, 500}) {
+                List<Coalescence.Point> lttb = drain(Downsampling.lttb(curve.iterator(), points));
+                List<Coalescence.Point> bins = drain(Downsampling.apply(Downsampling.Mode.BINS, curve.iterator(), points));
+                for (List<Coalescence.Point> reduced : List.of(lttb, bins)) {
+                    assertTrue(reduced.size() <= points, reduced.size() + " > " + points);
+                    assertEquals(curve.get(0), reduced.get(0));
+                    assertEquals(curve.get(curve.size() - 1), reduced.get(reduced.size() - 1));
+                    assertTrue(curve.containsAll(reduced));
+                    for (int i = 1; i < reduced.size(); i++) {
+                        assertTrue(reduced.get(i).time() <= reduced.get(i - 1).time());
+                    }
+                }
+            }
+        }
+        assertEquals(full, drain(Downsampling.apply(Downsampling.Mode.NONE, full.iterator(), 10)));
+        assertThrows(IllegalArgumentException.class, () -> Downsampling.lttb(full.iterator(), 2));
+        assertThrows(IllegalArgumentException.class, () -> Downsampling.timeBins(full.iterator(), 0));
+    }
+
+    @Test
+    @DisplayName("Fusion des deux courbes sur le temps")
+    void mergesOnTime() {
+        List<Coalescence.Point> pat = List.of(new Coalescence.Point(10.0, 3),
+                new Coalescence.Point(8.0, 2), new Coalescence.Point(5.0, 1));
+        List<Coalescence.Point> mat = List.of(new Coalescence.Point(10.0, 4),
+                new Coalescence.Point(8.0, 3), new Coalescence.Point(7.0, 2));
+        assertEquals(List.of(new Coalescence.Row(10.0, 3, 4), new Coalescence.Row(8.0, 2, 3),
+                        new Coalescence.Row(7.0, 2, 2), new Coalescence.Row(5.0, 1, 2)),
+                drain(Coalescence.merge(pat.iterator(), mat.iterator())));
+    }
+
+    /** Flux qui vérifie, à chaque point lu, qu'il n'a pas plus de {@code ahead} points d'avance sur l'impression. */
+    private static Iterator<Coalescence.Point> paced(List<Coalescence.Point> curve, int[] rows, int ahead) {
+        Iterator<Coalescence.Point> it = curve.iterator();
+        int[] taken = {0};
+        return new Iterator<>() {
+            @Override public boolean hasNext() { return it.hasNext(); }
+
+            @Override public Coalescence.Point next() {
+                assertTrue(++taken[0] <= rows[0] + ahead, "point " + taken[0] + " read after " + rows[0] + " rows");
+                return it.next();
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Sans réduction, chaque ligne est imprimée dès la fusion, du présent vers le passé")
+    void printsWhileMerging() {
+        List<Coalescence.Point> pat = fullCurve(3000, 1000.0, 7L);
+        List<Coalescence.Point> mat = fullCurve(500, 1000.0, 8L);
+        List<Coalescence.Row> expected = drain(Coalescence.merge(pat.iterator(), mat.iterator()));
+
+        int[] rows = {-2};                                   // deux lignes d'en-tête
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(new OutputStream() {
+            @Override public void write(int b) {
+                bytes.write(b);
+                if (b == '\n') rows[0]++;
+            }
+        }, true, StandardCharsets.UTF_8);
+        Coalescence.printResults(out, List.of(), paced(pat, rows, 2), paced(mat, rows, 2));
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("time,paternal,maternal", lines[1]);
+        assertEquals(expected.size(), lines.length - 2);
+        for (int i = 0; i < expected.size(); i++) {
+            Coalescence.Row r = expected.get(i);
+            assertEquals(String.format(Locale.US, "%.1f,%d,%d", r.time(), r.paternal(), r.maternal()), lines[i + 2]);
+        }
+    }
+}
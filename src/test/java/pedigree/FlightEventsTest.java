@@ -0,0 +1,64 @@
+package pedigree;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records a short simulation with the bundled {@code pedigree.jfc} profile
+ * (thresholds lowered to zero) and checks that every custom event is emitted.
+ */
+public class FlightEventsTest {
+
+    @Test
+    @DisplayName("Événements JFR du simulateur, de la file et de la coalescence")
+    void emitsCustomEvents(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("run.jfr");
+        Configuration profile;
+        try (var in = new InputStreamReader(
+                FlightEventsTest.class.getResourceAsStream("/pedigree.jfc"), StandardCharsets.UTF_8)) {
+            profile = Configuration.create(in);
+        }
+        try (Recording recording = new Recording(profile)) {
+            for (String e : new String[] {"Birth", "Death", "Reproduction", "Mate"}) {
+                recording.enable("pedigree." + e).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            Simulator sim = new Simulator(9L, 200.0);
+            for (int i = 0; i < 300; i++) {
+                sim.scheduleBirthEvent(new Sim(Sim.Sex.getSex()));
+            }
+            sim.run();
+            Coalescence.paternal(sim, 200.0);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+            counts.merge(e.getEventType().getName(), 1, Integer::sum);
+            if (e.getEventType().getName().equals("pedigree.CoalescencePhase")) {
+                assertEquals("paternal", e.getString("lineage"));
+            }
+        }
+        for (String name : new String[] {"pedigree.Birth", "pedigree.Death", "pedigree.Reproduction",
+                                         "pedigree.Mate", "pedigree.QueueResize"}) {
+            assertTrue(counts.getOrDefault(name, 0) > 0, name);
+        }
+        assertEquals(3, counts.get("pedigree.CoalescencePhase"), "heapify, index, trace");
+    }
+}
@@ -0,0 +1,38 @@
+package pedigree;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk founder initialization: population and demography are consistent and
+ * a run is reproducible for a seed, in both scheduling modes.
+ */
+@Timeout(30)
+public class FoundersTest {
+
+    /** Bulk founders (more than one parallel chunk) are reproducible for a seed. */
+    @Test
+    @DisplayName("Fondateurs en bloc reproductibles")
+    void bulkFoundersAreDeterministic() {
+        long[][] runs = new long[2][];
+        for (int k = 0; k < 2; k++) {
+            Simulator sim = new Simulator(13L, 300.0, k == 1);
+            sim.addFounders(100_000);
+            assertEquals(100_000, sim.getPopulation());
+            assertEquals(100_000, sim.getDemography().getMales() + sim.getDemography().getFemales());
+            assertEquals(0.5, sim.getMaleCount() / 100_000.0, 0.01);
+            sim.run(30.0);                  // > 16 ans : des naissances
+            runs[k] = new long[] {sim.getPopulation(), sim.getBirths(), sim.getMaleCount()};
+
+            Simulator again = new Simulator(13L, 300.0, k == 1);
+            again.addFounders(100_000);
+            again.run(30.0);
+            assertArrayEquals(runs[k], new long[] {again.getPopulation(), again.getBirths(), again.getMaleCount()},
+                    "même graine, même trajectoire");
+        }
+        assertTrue(runs[0][1] > 0 && runs[1][1] > 0);
+    }
+}
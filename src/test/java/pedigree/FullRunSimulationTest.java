@@ -9,16 +9,16 @@ import static org.junit.jupiter.api.Assertions.*;
 /**
  * Integration test that runs the simulator for a short period
  * of time and checks that events are processed in chronological
- * order and that the population never becomes negative.
+ * order and that the population never becomes negative, and that
+ * run() honours its stop conditions and periodic observers.
  */
 @Timeout(10)
 public class FullRunSimulationTest {
 
     /**
-     * Executes the event loop until either no events remain or the
-     * horizon is reached. After each step we ensure that events are
-     * processed in chronological order and the population count is
-     * non‑negative.
+     * Runs the engine until the horizon. An observer checks after each
+     * step that events are processed in chronological order and the
+     * population count is non‑negative.
      */
     @Test
     @DisplayName("Exécution complète de la simulation sur une courte période")
@@ -31,33 +31,101 @@ public class FullRunSimulationTest {
             sim.Birth(new Sim(Sim.Sex.getSex()));
         }
 
-        double lastTime = 0.0;
         final double HORIZON = 200.0;
 
         System.out.println("time,population");
-        while (sim.hasEvents()) {
-            Simulator.Event ev = sim.getEvent();
-            assertNotNull(ev, "Les événements doivent être non nuls");
-            assertTrue(ev.getTime() >= lastTime,
-                       "Les événements doivent être ordonnés chronologiquement");
-            lastTime = ev.getTime();
-            if (lastTime > HORIZON) break; // limite de temps
-
-            sim.setTime(ev.getTime());
-            switch (ev.getEvent()) {
-                case Birth -> sim.Birth(ev.getSim());
-                case Death -> sim.Death(ev.getSim());
-                case Reproduction -> sim.Reproduction(ev.getSim());
-                case EntersMatingAge -> sim.EntersMatingAge(ev.getSim());
-                case ExitsMatingAge -> sim.ExitsMatingAge(ev.getSim());
+        sim.addEventObserver(new Simulator.Observer() {
+            double lastTime = 0.0;
+
+            @Override
+            public void onEvent(Simulator s, Simulator.Event ev) {
+                assertNotNull(ev, "Les événements doivent être non nuls");
+                assertTrue(ev.getTime() >= lastTime,
+                           "Les événements doivent être ordonnés chronologiquement");
+                assertTrue(ev.getTime() <= HORIZON, "limite de temps");
+                lastTime = ev.getTime();
+
+                // Affiche l'état courant de la simulation
+                System.out.printf("%.1f,%d%n", lastTime, s.getPopulation());
+
+                assertTrue(s.getPopulation() >= 0, "Population toujours positive");
             }
+        });
+        assertEquals(Simulator.StopReason.HORIZON, sim.run(HORIZON));
+        assertEquals(HORIZON, sim.getTime());
 
-            // Affiche l'état courant de la simulation
-            System.out.printf("%.1f,%d%n", lastTime, sim.getPopulation());
+        System.out.println("Population finale: " + sim.getPopulation());
+    }
 
-            assertTrue(sim.getPopulation() >= 0, "Population toujours positive");
+    /** Stop conditions and periodic observers of {@link Simulator#run(double)}. */
+    @Test
+    @DisplayName("Conditions d'arrêt et observateurs périodiques")
+    void stopConditionsAndPeriodicObservers() {
+        Simulator sim = new Simulator(3L, 1000.0);
+        for (int i = 0; i < 500; i++) {
+            sim.scheduleBirthEvent(new Sim(Sim.Sex.getSex()));
         }
+        int[] ticks = {0};
+        sim.addPeriodicObserver(new Simulator.Observer() {
+            @Override
+            public void onPeriod(Simulator s, double time) {
+                assertEquals(50.0 * (ticks[0] + 1), time, 1e-9);
+                ticks[0]++;
+            }
+        }, 50.0);
+        assertEquals(Simulator.StopReason.HORIZON, sim.run(200.0));
+        assertEquals(4, ticks[0], "50, 100, 150, 200");
 
-        System.out.println("Population finale: " + sim.getPopulation());
+        Simulator capped = new Simulator(3L, 1000.0);
+        for (int i = 0; i < 500; i++) {
+            capped.scheduleBirthEvent(new Sim(Sim.Sex.getSex()));
+        }
+        capped.setPopulationCap(100);
+        assertEquals(Simulator.StopReason.POPULATION_CAP, capped.run());
+        assertEquals(101, capped.getPopulation());
+
+        Simulator empty = new Simulator(3L, 100.0);
+        empty.setStopOnExtinction(true);
+        empty.scheduleBirthEvent(new Sim(Sim.Sex.M));
+        assertEquals(Simulator.StopReason.EXTINCT, empty.run());
+    }
+
+    /** {@code run(+∞)} ends when the queue runs dry, with or without periodic observers. */
+    @Test
+    @DisplayName("Exécution sans limite de date : arrêt à l'épuisement des événements")
+    void runUntilInfinityStopsWhenQueueIsEmpty() {
+        Simulator plain = new Simulator(3L, 100.0);
+        plain.scheduleBirthEvent(new Sim(Sim.Sex.M));
+        assertEquals(Simulator.StopReason.NO_EVENTS, plain.run(Double.POSITIVE_INFINITY));
+        assertEquals(0, plain.getPopulation());
+        assertEquals(100.0, plain.getTime(), "dernier événement : l'échantillon à l'horizon");
+
+        Simulator observed = new Simulator(3L, 100.0);
+        observed.scheduleBirthEvent(new Sim(Sim.Sex.M));
+        int[] ticks = {0};
+        observed.addPeriodicObserver(new Simulator.Observer() {
+            @Override
+            public void onPeriod(Simulator s, double time) {
+                assertTrue(time <= 100.0, "période " + time);
+                ticks[0]++;
+            }
+        }, 10.0);
+        assertEquals(Simulator.StopReason.NO_EVENTS, observed.run(Double.POSITIVE_INFINITY));
+        assertEquals(100.0, observed.getTime());
+        assertEquals(10, ticks[0], "10, 20, …, 100");
+    }
+
+    /** The wall-clock budget stops a run long before its horizon. */
+    @Test
+    @DisplayName("Budget d'horloge : arrêt en temps réel")
+    void wallClockBudgetStopsTheRun() {
+        Simulator sim = new Simulator(3L, 1.0e6);
+        sim.addFounders(5000);
+        sim.setWallClockBudget(50);
+        long start = System.nanoTime();
+        assertEquals(Simulator.StopReason.WALL_CLOCK, sim.run());
+        assertTrue(System.nanoTime() - start < 5_000_000_000L, "arrêt rapide");
+        assertTrue(sim.getTime() < 1.0e6);
+        assertTrue(sim.getPopulation() > 0);
     }
 }
@@ -0,0 +1,127 @@
+package pedigree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress and quality tests for the relaxed concurrent queue: no element is lost
+ * or duplicated under contention, a single sub-queue is an exact heap, and the
+ * measured rank error stays within the documented bounds
+ * (mean O(q), maximum O(q log n)).
+ */
+@Timeout(30)
+public class MultiQueueTest {
+
+    @Test
+    @DisplayName("Producteurs et consommateurs concurrents : chaque élément sort une seule fois")
+    void concurrentStressLosesNothing() throws InterruptedException, ExecutionException {
+        final int THREADS = 4, PER_THREAD = 50_000, TOTAL = THREADS * PER_THREAD;
+        MultiQueue<Integer> q = new MultiQueue<>(8);
+        AtomicInteger[] seen = new AtomicInteger[TOTAL];
+        for (int i = 0; i < TOTAL; i++) seen[i] = new AtomicInteger();
+        AtomicInteger polled = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2 * THREADS);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int base = t * PER_THREAD;
+                tasks.add(pool.submit(() -> {            // producteur, qui consomme aussi
+                    start.await();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        q.add(base + i);
+                        if ((i & 1) == 0) {
+                            Integer e = q.poll();
+                            if (e != null) { seen[e].incrementAndGet(); polled.incrementAndGet(); }
+                        }
+                    }
+                    return null;
+                }));
+                tasks.add(pool.submit(() -> {            // consommateur pur
+                    start.await();
+                    while (polled.get() < TOTAL) {
+                        Integer e = q.poll();
+                        if (e != null) { seen[e].incrementAndGet(); polled.incrementAndGet(); }
+                        else Thread.onSpinWait();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : tasks) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(TOTAL, polled.get());
+        assertTrue(q.isEmpty());
+        assertNull(q.poll());
+        for (int i = 0; i < TOTAL; i++) assertEquals(1, seen[i].get(), "élément " + i);
+    }
+
+    @Test
+    @DisplayName("Une seule sous-file : ordre exact, comme PriorityQueueO")
+    void singleQueueIsExact() {
+        MultiQueue<Integer> q = new MultiQueue<>(1);
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) values.add(i);
+        Collections.shuffle(values, new Random(3L));
+        values.forEach(q::add);
+        for (int i = 0; i < 1000; i++) assertEquals(i, q.poll());
+        assertNull(q.poll());
+    }
+
+    @Test
+    @DisplayName("Erreur de rang moyenne de l'ordre du nombre de sous-files")
+    void rankErrorIsBounded() {
+        final int QUEUES = 8, N = 100_000;
+        MultiQueue<Integer> q = new MultiQueue<>(QUEUES, null, new Random(11L));
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < N; i++) values.add(i);
+        Collections.shuffle(values, new Random(5L));
+        values.forEach(q::add);
+
+        // arbre de Fenwick des éléments encore présents : rang = nombre de présents < e
+        int[] tree = new int[N + 1];
+        for (int i = 1; i <= N; i++) {
+            tree[i]++;
+            int j = i + (i & -i);
+            if (j <= N) tree[j] += tree[i];
+        }
+        long total = 0;
+        int max = 0;
+        for (int k = 0; k < N; k++) {
+            int e = q.poll();
+            int rank = 0;
+            for (int i = e; i > 0; i -= i & -i) rank += tree[i];
+            for (int i = e + 1; i <= N; i += i & -i) tree[i]--;
+            total += rank;
+            max = Math.max(max, rank);
+        }
+        double mean = total / (double) N;
+        assertTrue(mean <= 2.0 * QUEUES, "erreur de rang moyenne " + mean);
+        assertTrue(max <= 2.0 * QUEUES * Math.log(N), "erreur de rang maximale " + max);
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MultiQueue<Integer>(0));
+        assertThrows(NullPointerException.class, () -> new MultiQueue<Integer>(2).add(null));
+    }
+}
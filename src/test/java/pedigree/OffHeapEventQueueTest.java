@@ -0,0 +1,141 @@
+package pedigree;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Off-heap event queue: same output order as PriorityQueueO, ties included,
+ * a simulation that runs identically whichever queue holds its events, and a
+ * Java heap that stays flat as the queue deepens.
+ */
+@Timeout(30)
+public class OffHeapEventQueueTest {
+
+    private record Key(double time, Simulator.Events kind, Sim sim) {
+        static Key of(Simulator.Event e) {
+            return e == null ? null : new Key(e.getTime(), e.getEvent(), e.getSim());
+        }
+    }
+
+    private static List<Key> keys(List<Simulator.Event> events) {
+        List<Key> keys = new ArrayList<>();
+        for (Simulator.Event e : events) keys.add(Key.of(e));
+        return keys;
+    }
+
+    @Test
+    @DisplayName("Même ordre de sortie que PriorityQueueO, égalités comprises")
+    void matchesPriorityQueueO() {
+        Simulator owner = new Simulator(1L, -1.0);
+        Sim[] sims = new Sim[2000];
+        for (int i = 0; i < sims.length; i++) sims[i] = new Sim(Sim.Sex.F);
+        Simulator.Events[] kinds = Simulator.Events.values();
+        PriorityQueueO<Simulator.Event> expected = new PriorityQueueO<>(new Simulator.EventComparator());
+        OffHeapEventQueue actual = new OffHeapEventQueue(owner);
+        Random rnd = new Random(3L);
+        for (int step = 0; step < 50_000; step++) {
+            int op = rnd.nextInt(10);
+            if (op < 4) {
+                // dates entières : beaucoup d'égalités
+                Simulator.Event e = owner.new Event(kinds[rnd.nextInt(kinds.length)],
+                        rnd.nextInt(20) == 0 ? null : sims[rnd.nextInt(sims.length)], rnd.nextInt(100));
+                expected.add(e);
+                actual.add(e);
+            } else if (op < 9) {
+                assertEquals(Key.of(expected.poll()), Key.of(actual.poll()));
+            } else {
+                List<Simulator.Event> batch = new ArrayList<>();
+                for (int k = rnd.nextInt(10); k > 0; k--) {
+                    batch.add(owner.new Event(kinds[rnd.nextInt(kinds.length)], sims[rnd.nextInt(sims.length)],
+                            rnd.nextInt(100)));
+                }
+                expected.addAll(batch);
+                actual.addAll(batch);
+            }
+            assertEquals(expected.size(), actual.size());
+            Simulator.Event top = expected.peek();
+            assertEquals(top == null ? Double.POSITIVE_INFINITY : top.getTime(), actual.peekTime());
+        }
+        assertEquals(keys(expected.toList()), keys(actual.toList()));
+        while (!expected.isEmpty()) assertEquals(Key.of(expected.poll()), Key.of(actual.poll()));
+        assertNull(actual.poll());
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Simulation identique avec la file hors du tas, y compris après bascule en cours")
+    void simulationUnchanged() {
+        for (boolean lazy : new boolean[] {false, true}) {
+            Simulator heap = new Simulator(7L, 1200.0, lazy);
+            heap.addFounders(800);
+            heap.run();
+
+            Simulator off = new Simulator(7L, 1200.0, lazy);
+            off.setOffHeapEvents(true);
+            assertTrue(off.hasOffHeapEvents());
+            off.addFounders(800);
+            off.run(600.0);
+            off.setOffHeapEvents(false);
+            off.run(900.0);
+            off.setOffHeapEvents(true);
+            off.run();
+
+            assertEquals(heap.getBirths(), off.getBirths(), "lazy=" + lazy);
+            assertEquals(heap.getPopulation(), off.getPopulation());
+            assertEquals(heap.getQueueOperations(), off.getQueueOperations());
+            assertEquals(heap.getPopSamples(), off.getPopSamples());
+            assertEquals(Coalescence.maternal(heap, 1200.0), Coalescence.maternal(off, 1200.0));
+        }
+    }
+
+    /** Tas utilisé après GC, en octets. */
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /** Tas retenu par une file remplie à {@code depth} événements sur 1000 Sims. */
+    private static long retainedHeap(boolean offHeap, int depth) {
+        Simulator owner = new Simulator(1L, -1.0);
+        Sim[] sims = new Sim[1000];
+        for (int i = 0; i < sims.length; i++) sims[i] = new Sim(Sim.Sex.M);
+        Random rnd = new Random(depth);
+        long before = usedHeapAfterGc();
+        OffHeapEventQueue off = offHeap ? new OffHeapEventQueue(owner) : null;
+        PriorityQueueO<Simulator.Event> heap = offHeap ? null : new PriorityQueueO<>(new Simulator.EventComparator());
+        for (int i = 0; i < depth; i++) {
+            Simulator.Event e = owner.new Event(Simulator.Events.Death, sims[rnd.nextInt(sims.length)], 100.0 * rnd.nextDouble());
+            if (offHeap) off.add(e); else heap.add(e);
+        }
+        long retained = usedHeapAfterGc() - before;
+        assertEquals(depth, offHeap ? off.size() : heap.size());    // la file reste atteignable jusqu'à la mesure
+        return retained;
+    }
+
+    @Test
+    @DisplayName("Tas après GC : stable avec la file hors du tas, croissant avec PriorityQueueO")
+    void heapStaysFlatOffHeap() {
+        int[] depths = {250_000, 500_000, 1_000_000};
+        long[] heap = new long[depths.length];
+        long[] off = new long[depths.length];
+        for (int i = 0; i < depths.length; i++) {
+            heap[i] = retainedHeap(false, depths[i]);
+            off[i] = retainedHeap(true, depths[i]);
+            System.out.printf("depth %,d: heap queue %,d bytes, off-heap queue %,d bytes%n", depths[i], heap[i], off[i]);
+        }
+        // PriorityQueueO : un Event (≈ 32 octets) et une case de tableau par événement
+        for (int i = 0; i < depths.length; i++) {
+            assertTrue(heap[i] > 20L * depths[i], "heap queue at " + depths[i] + ": " + heap[i]);
+            assertTrue(off[i] < 2L << 20, "off-heap queue at " + depths[i] + ": " + off[i]);
+        }
+        assertTrue(heap[2] > heap[0] + 15L * (depths[2] - depths[0]), "heap queue grows with depth");
+    }
+}
@@ -0,0 +1,44 @@
+package pedigree;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lazy reproduction scheduling: one heap entry per fertile mother keeps the
+ * events chronological with fewer queue operations per birth than one
+ * Reproduction event per attempt.
+ */
+@Timeout(10)
+public class ReproductionScheduleTest {
+
+    /**
+     * Lazy reproduction scheduling must keep events chronological and use
+     * fewer queue operations per birth than the eager scheduling.
+     */
+    @Test
+    @DisplayName("Planification paresseuse des reproductions")
+    void lazyReproductionUsesFewerQueueOperations() {
+        final double HORIZON = 300.0;
+        double[] opsPerBirth = new double[2];
+        for (int mode = 0; mode < 2; mode++) {
+            Simulator sim = new Simulator(11L, HORIZON, mode == 1);
+            sim.addFounders(1000);
+            double[] lastTime = {0.0};
+            sim.addEventObserver(new Simulator.Observer() {
+                @Override
+                public void onEvent(Simulator s, Simulator.Event ev) {
+                    assertTrue(ev.getTime() >= lastTime[0], "ordre chronologique");
+                    lastTime[0] = ev.getTime();
+                }
+            });
+            sim.run(HORIZON);
+            assertTrue(sim.getBirths() > 0);
+            opsPerBirth[mode] = sim.getQueueOperations() / (double) sim.getBirths();
+        }
+        assertTrue(opsPerBirth[1] < opsPerBirth[0],
+                "paresseux " + opsPerBirth[1] + " vs classique " + opsPerBirth[0]);
+    }
+}
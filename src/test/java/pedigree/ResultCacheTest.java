@@ -0,0 +1,165 @@
+package pedigree;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the on-disk result cache: a restored simulator state continues exactly
+ * like the original run, keys cover the model parameters and every class file
+ * of the simulator (nested classes included), hits are served
+ * without simulating, longer horizons resume from a cached state, and the
+ * size cap evicts the least recently used entries.
+ */
+@Timeout(30)
+public class ResultCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private static Coalescence.Result run(Simulator sim, double horizon) {
+        sim.run(horizon);
+        return new Coalescence.Result(List.copyOf(sim.getPopSamples()),
+                Coalescence.paternal(sim, horizon), Coalescence.maternal(sim, horizon));
+    }
+
+    private static Simulator roundTrip(Simulator sim, double horizon) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            sim.writeState(out);
+        }
+        return Simulator.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), horizon);
+    }
+
+    @Test
+    @DisplayName("Un état repris se poursuit exactement comme la simulation d'origine")
+    void restoredStateContinuesIdentically() throws IOException {
+        for (boolean lazy : new boolean[] {false, true}) {
+            Simulator fresh = new Simulator(11L, 600.0, lazy);
+            fresh.addFounders(500);
+            Coalescence.Result expected = run(fresh, 600.0);
+
+            Simulator first = new Simulator(11L, 300.0, lazy);
+            first.addFounders(500);
+            first.run(300.0);
+            Simulator resumed = roundTrip(first, 600.0);
+            assertEquals(300.0, resumed.getTime());
+            assertEquals(first.getPopulation(), resumed.getPopulation());
+            Coalescence.Result actual = run(resumed, 600.0);
+
+            assertEquals(expected, actual, "lazy=" + lazy);
+            assertEquals(fresh.getBirths(), resumed.getBirths());
+            assertEquals(fresh.getQueueOperations(), resumed.getQueueOperations());
+            assertEquals(fresh.getDemography().getMatedPairs(), resumed.getDemography().getMatedPairs());
+        }
+    }
+
+    @Test
+    @DisplayName("La clé couvre les paramètres du modèle")
+    void keyCoversParameters() {
+        String key = ResultCache.resultKey(100, 500.0, 1L);
+        assertEquals(key, ResultCache.resultKey(100, 500.0, 1L));
+        assertNotEquals(key, ResultCache.resultKey(100, 500.0, 2L));
+        assertNotEquals(key, ResultCache.resultKey(100, 600.0, 1L));
+        double saved = Sim.MAX_MATING_AGE_F;
+        try {
+            Sim.MAX_MATING_AGE_F = 45.0;
+            assertNotEquals(key, ResultCache.resultKey(100, 500.0, 1L));
+        } finally {
+            Sim.MAX_MATING_AGE_F = saved;
+        }
+    }
+
+    @Test
+    @DisplayName("La version du code couvre les classes imbriquées")
+    void codeVersionCoversNestedClasses() throws Exception {
+        Path classes = Path.of(ResultCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path copy = Files.createDirectories(dir.resolve("classes/pedigree"));
+        try (var files = Files.list(classes.resolve("pedigree"))) {
+            for (Path p : (Iterable<Path>) files::iterator) Files.copy(p, copy.resolve(p.getFileName()));
+        }
+        String version = ResultCache.codeVersion(dir.resolve("classes"));
+        assertEquals(version, ResultCache.codeVersion(classes));
+
+        Path nested = copy.resolve("Simulator$EventComparator.class");
+        Files.write(nested, new byte[] {0}, StandardOpenOption.APPEND);
+        assertNotEquals(version, ResultCache.codeVersion(dir.resolve("classes")));
+        Files.write(copy.resolve("Batch.class"), new byte[] {0}, StandardOpenOption.APPEND);
+        Files.copy(classes.resolve("pedigree/Simulator$EventComparator.class"), nested,
+                StandardCopyOption.REPLACE_EXISTING);
+        assertEquals(version, ResultCache.codeVersion(dir.resolve("classes")), "Batch is not simulation code");
+    }
+
+    @Test
+    @DisplayName("Succès servi sans simulation ; horizon plus long repris d'un état en cache")
+    void hitsAndResumes() throws IOException {
+        ResultCache cache = new ResultCache(dir, 1L << 30);
+        AtomicInteger simulated = new AtomicInteger();
+        String first = simulate(cache, 400.0, simulated);
+        assertEquals(1, simulated.get());
+        assertEquals(first, simulate(cache, 400.0, simulated));
+        assertEquals(1, simulated.get(), "second run served from the cache");
+
+        AtomicInteger startTime = new AtomicInteger(-1);
+        ByteArrayOutputStream longer = new ByteArrayOutputStream();
+        Coalescence.simulate(300, 800.0, 5L, new PrintStream(longer, true, StandardCharsets.UTF_8), cache,
+                sim -> startTime.set((int) sim.getTime()));
+        assertEquals(400, startTime.get(), "resumed from the state at 400");
+
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        Coalescence.simulate(300, 800.0, 5L, new PrintStream(direct, true, StandardCharsets.UTF_8), null, sim -> {});
+        assertEquals(direct.toString(StandardCharsets.UTF_8), longer.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String simulate(ResultCache cache, double horizon, AtomicInteger simulated) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Coalescence.simulate(300, horizon, 5L, new PrintStream(out, true, StandardCharsets.UTF_8), cache,
+                sim -> simulated.incrementAndGet());
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Éviction LRU sous la limite de taille ; entrée corrompue traitée comme absente")
+    void evictsLeastRecentlyUsed() throws IOException {
+        Coalescence.Result r = new Coalescence.Result(
+                List.of(new Simulator.PointPop(0.0, 10)), List.of(new Coalescence.Point(100.0, 10)),
+                List.of(new Coalescence.Point(100.0, 10)));
+        ResultCache big = new ResultCache(dir, 1L << 20);
+        for (String k : new String[] {"a", "b", "c"}) big.put(k, r);
+        long entry = Files.size(dir.resolve("a.result"));
+        Files.setLastModifiedTime(dir.resolve("a.result"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(dir.resolve("b.result"), FileTime.fromMillis(2000));
+        Files.setLastModifiedTime(dir.resolve("c.result"), FileTime.fromMillis(3000));
+        assertEquals(r, big.get("a"));                      // a redevient le plus récent
+
+        ResultCache small = new ResultCache(dir, 3 * entry);
+        small.put("d", r);
+        assertNull(small.get("b"), "least recently used entry evicted");
+        assertEquals(r, small.get("a"));
+        assertEquals(r, small.get("c"));
+        assertEquals(r, small.get("d"));
+        assertTrue(small.size() <= 3 * entry);
+
+        Files.writeString(dir.resolve("c.result"), "garbage");
+        assertNull(small.get("c"));
+        assertFalse(Files.exists(dir.resolve("c.result")));
+    }
+}
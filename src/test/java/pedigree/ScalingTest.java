@@ -0,0 +1,134 @@
+package pedigree;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Scaling regression suite, excluded from the default build and run with
+ * {@code mvn test -Pscaling}. Runs full simulations at increasing founder counts,
+ * fits the log-log exponent of runtime and retained heap versus population, writes
+ * a JSON report and fails if an exponent or the absolute budget of the largest
+ * run is exceeded. Sizes, horizon and thresholds are system properties
+ * ({@code scaling.*}, see the {@code scaling} profile in the pom).
+ */
+@Tag("scaling")
+public class ScalingTest {
+
+    /** Mémoire en octets au-dessus du tas occupé avant la simulation (mesuré après GC). */
+    private record Run(int founders, long queueOperations, double seconds, long peakHeapBytes, long retainedHeapBytes) {}
+
+    @Test
+    @DisplayName("Temps et mémoire quasi linéaires en la taille de la population")
+    void scalesLinearly() throws IOException {
+        int[] sizes = Arrays.stream(System.getProperty("scaling.sizes", "1000,10000,100000,1000000").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        double horizon = Double.parseDouble(System.getProperty("scaling.horizon", "100"));
+        double maxTimeExponent = Double.parseDouble(System.getProperty("scaling.maxTimeExponent", "1.25"));
+        double maxHeapExponent = Double.parseDouble(System.getProperty("scaling.maxHeapExponent", "1.10"));
+        double budgetSeconds = Double.parseDouble(System.getProperty("scaling.budgetSeconds", "120"));
+        long budgetHeapMb = Long.parseLong(System.getProperty("scaling.budgetHeapMb", "3072"));
+        Path report = Path.of(System.getProperty("scaling.report", "target/scaling-report.json"));
+
+        simulate(sizes[0], horizon);                 // préchauffage JIT
+        List<Run> runs = new ArrayList<>();
+        for (int n : sizes) runs.add(measure(n, horizon));
+
+        double[] x = runs.stream().mapToDouble(r -> Math.log(r.founders())).toArray();
+        double timeExponent = slope(x, runs.stream().mapToDouble(r -> Math.log(r.seconds())).toArray());
+        double heapExponent = slope(x, runs.stream().mapToDouble(r -> Math.log(r.retainedHeapBytes())).toArray());
+        Run largest = runs.get(runs.size() - 1);
+        writeReport(report, horizon, runs, timeExponent, heapExponent);
+
+        assertTrue(timeExponent <= maxTimeExponent,
+                String.format(Locale.US, "runtime exponent %.3f > %.3f (see %s)", timeExponent, maxTimeExponent, report));
+        assertTrue(heapExponent <= maxHeapExponent,
+                String.format(Locale.US, "heap exponent %.3f > %.3f (see %s)", heapExponent, maxHeapExponent, report));
+        assertTrue(largest.seconds() <= budgetSeconds,
+                String.format(Locale.US, "%d founders took %.1f s > %.1f s", largest.founders(), largest.seconds(), budgetSeconds));
+        assertTrue(largest.peakHeapBytes() <= budgetHeapMb << 20,
+                String.format(Locale.US, "%d founders peaked at %d MB > %d MB",
+                        largest.founders(), largest.peakHeapBytes() >> 20, budgetHeapMb));
+    }
+
+    private static Simulator simulate(int founders, double horizon) {
+        Simulator sim = new Simulator(42L, horizon);
+        sim.addFounders(founders);
+        sim.run(horizon);
+        return sim;
+    }
+
+    /** Tas occupé après GC. */
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Une simulation complète. Le pic de tas est lu sur les pools de mémoire heap, le tas
+     * retenu après GC, la simulation encore atteignable ; tous deux moins le tas occupé
+     * avant sa construction.
+     */
+    private static Run measure(int founders, double horizon) {
+        long baseline = usedHeapAfterGc();
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean p : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (p.getType() == MemoryType.HEAP && p.isValid()) {
+                p.resetPeakUsage();
+                pools.add(p);
+            }
+        }
+        long start = System.nanoTime();
+        Simulator sim = simulate(founders, horizon);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long peak = 0;
+        for (MemoryPoolMXBean p : pools) peak += p.getPeakUsage().getUsed();
+        long retained = usedHeapAfterGc() - baseline;
+        return new Run(founders, sim.getQueueOperations(), seconds,
+                Math.max(1L, peak - baseline), Math.max(1L, retained));
+    }
+
+    /** Pente des moindres carrés de y en x. */
+    private static double slope(double[] x, double[] y) {
+        double mx = Arrays.stream(x).average().orElse(0.0);
+        double my = Arrays.stream(y).average().orElse(0.0);
+        double num = 0.0, den = 0.0;
+        for (int i = 0; i < x.length; i++) {
+            num += (x[i] - mx) * (y[i] - my);
+            den += (x[i] - mx) * (x[i] - mx);
+        }
+        return den == 0.0 ? 0.0 : num / den;
+    }
+
+    private static void writeReport(Path path, double horizon, List<Run> runs,
+                                    double timeExponent, double heapExponent) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            out.printf(Locale.US, "{%n  \"horizon\": %.1f,%n  \"runs\": [%n", horizon);
+            for (int i = 0; i < runs.size(); i++) {
+                Run r = runs.get(i);
+                out.printf(Locale.US,
+                        "    {\"founders\": %d, \"queueOperations\": %d, \"seconds\": %.4f, \"peakHeapBytes\": %d, \"retainedHeapBytes\": %d}%s%n",
+                        r.founders(), r.queueOperations(), r.seconds(), r.peakHeapBytes(), r.retainedHeapBytes(),
+                        i + 1 < runs.size() ? "," : "");
+            }
+            out.printf(Locale.US, "  ],%n  \"timeExponent\": %.4f,%n  \"heapExponent\": %.4f%n}%n",
+                    timeExponent, heapExponent);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package pedigree;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Live simulator metrics: per-type event counters, gauges published at each
+ * period, and rates.
+ */
+@Timeout(10)
+public class SimulatorMetricsTest {
+
+    /** Live metrics: per-type counters, published gauges and rates. */
+    @Test
+    @DisplayName("Métriques en direct du simulateur")
+    void metricsTrackTheRun() {
+        Simulator sim = new Simulator(5L, 200.0);
+        for (int i = 0; i < 1000; i++) {
+            sim.scheduleBirthEvent(new Sim(i % 2 == 0 ? Sim.Sex.F : Sim.Sex.M));
+        }
+        SimulatorMetrics metrics = SimulatorMetrics.attach(sim, 10.0);
+        long[] events = {0};
+        int[] gauges = new int[4];          // relevés au même instant que les métriques
+        sim.addEventObserver(new Simulator.Observer() {
+            @Override
+            public void onEvent(Simulator s, Simulator.Event e) {
+                events[0]++;
+            }
+        });
+        sim.addPeriodicObserver(new Simulator.Observer() {
+            @Override
+            public void onPeriod(Simulator s, double time) {
+                gauges[0] = s.getMaleCount();
+                gauges[1] = s.getFemaleCount();
+                gauges[2] = s.getAvailableMaleCount();
+                gauges[3] = s.getQueueSize();
+            }
+        }, 10.0);
+        sim.run(200.0);
+
+        assertEquals(events[0], metrics.getEventsProcessed());
+        assertEquals(1000, metrics.getBirthEvents(), "naissances planifiées : les fondateurs");
+        assertTrue(metrics.getReproductionEvents() >= sim.getBirths());
+        assertEquals(3, metrics.getSampleEvents(), "0, 100, 200");
+        assertEquals(200.0, metrics.getSimulatedTime());
+        assertEquals(gauges[0], metrics.getLivingMales());
+        assertEquals(gauges[1], metrics.getLivingFemales());
+        assertEquals(gauges[2], metrics.getAvailableMales());
+        assertEquals(gauges[3], metrics.getQueueSize());
+        assertTrue(metrics.getEventsPerSecond() > 0.0);
+        assertEquals(0.0, metrics.getEtaSeconds(), "horizon atteint");
+    }
+}
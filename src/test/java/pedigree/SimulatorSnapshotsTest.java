@@ -0,0 +1,72 @@
+package pedigree;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Epoch snapshots read by a concurrent thread while the simulation runs:
+ * epochs only move forward, each snapshot is internally consistent and
+ * coalescence can be computed on it off the simulation thread.
+ */
+@Timeout(30)
+public class SimulatorSnapshotsTest {
+
+    @Test
+    @DisplayName("Lecture concurrente des instantanés pendant l'exécution")
+    void readerSeesConsistentEpochs() throws Exception {
+        Simulator sim = new Simulator(21L, 500.0);
+        for (int i = 0; i < 2000; i++) {
+            sim.scheduleBirthEvent(new Sim(Sim.Sex.getSex()));
+        }
+        SimulatorSnapshots snapshots = SimulatorSnapshots.attach(sim, 10.0);
+        assertEquals(0L, snapshots.latest().getEpoch());
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger coalescences = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                long last = -1;
+                while (!done.get()) {
+                    SimulatorSnapshots.Snapshot s = snapshots.latest();
+                    assertTrue(s.getEpoch() >= last, "époques croissantes");
+                    int[] m = s.maleIds();
+                    int[] f = s.femaleIds();
+                    assertEquals(s.getPopulation(), m.length + f.length);
+                    Set<Integer> ids = new HashSet<>();
+                    for (int id : m) ids.add(id);
+                    for (int id : f) ids.add(id);
+                    assertEquals(s.getPopulation(), ids.size(), "identifiants distincts");
+                    if (s.getEpoch() > last && s.getPopulation() > 0) {
+                        List<Coalescence.Point> pat = s.paternal();
+                        assertEquals(s.getPopulation(), pat.get(0).lineages());
+                        coalescences.incrementAndGet();
+                    }
+                    last = s.getEpoch();
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        }, "dashboard");
+        reader.start();
+        sim.run();
+        done.set(true);
+        reader.join();
+        if (failure.get() != null) throw new AssertionError("reader failed", failure.get());
+
+        SimulatorSnapshots.Snapshot last = snapshots.latest();
+        assertEquals(50L, last.getEpoch(), "une époque tous les 10 ans");
+        assertEquals(500.0, last.getTime());
+        assertTrue(coalescences.get() > 0);
+    }
+}
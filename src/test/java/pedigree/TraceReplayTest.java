@@ -0,0 +1,95 @@
+package pedigree;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Event traces: recording leaves the simulation unchanged, the decoded trace
+ * has every recorded operation (set changes only when effective), and replaying it on any candidate queue ends
+ * with the simulator's queue and set sizes.
+ */
+@Timeout(30)
+public class TraceReplayTest {
+
+    private static Simulator simulate(TraceRecorder trace) {
+        Simulator sim = new Simulator(9L, 1500.0);
+        if (trace != null) sim.setTrace(trace);
+        sim.addFounders(500);
+        sim.run();
+        return sim;
+    }
+
+    @Test
+    @DisplayName("Le journal ne change pas la simulation ; le rejeu retrouve l'état final")
+    void replayReachesFinalState() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TraceRecorder recorder = new TraceRecorder(bytes);
+        Simulator traced = simulate(recorder);
+        recorder.close();
+        Simulator plain = simulate(null);
+        assertEquals(plain.getBirths(), traced.getBirths());
+        assertEquals(plain.getPopulation(), traced.getPopulation());
+        assertEquals(plain.getQueueOperations(), traced.getQueueOperations());
+
+        TraceReplay.Trace trace = TraceReplay.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(recorder.operations(), trace.operations());
+        assertEquals(recorder.bytes(), trace.bytes());
+        assertEquals(bytes.size(), trace.bytes());
+        assertEquals(2, trace.count("addAll"));             // file initiale (Sample), fondateurs
+        assertTrue(trace.count("set.random") > 0);
+
+        for (String name : new String[] {"heap", "jdk", "multi"}) {
+            TraceReplay.EventQueue queue = TraceReplay.queue(name);
+            TraceReplay.MatingSet[] sets = {TraceReplay.simSet(), TraceReplay.simSet(), TraceReplay.simSet()};
+            TraceReplay.replay(trace, queue, sets, null);
+            assertEquals(traced.getQueueSize(), queue.size(), name);
+            assertEquals(traced.getMaleCount(), sets[TraceRecorder.MALES].size());
+            assertEquals(traced.getFemaleCount(), sets[TraceRecorder.FEMALES].size());
+            assertEquals(traced.getAvailableMaleCount(), sets[TraceRecorder.AVAILABLE_MALES].size());
+        }
+
+        Map<String, TraceReplay.Latency> latencies =
+                TraceReplay.latencies(trace, () -> TraceReplay.queue("heap"), TraceReplay::simSet);
+        assertEquals(trace.operations(), latencies.values().stream().mapToLong(TraceReplay.Latency::count).sum());
+        for (TraceReplay.Latency l : latencies.values()) {
+            assertTrue(l.percentile(0.5) <= l.percentile(0.99));
+            assertTrue(l.percentile(0.99) <= l.max());
+        }
+        assertTrue(TraceReplay.throughput(trace, () -> TraceReplay.queue("heap"), TraceReplay::simSet) > 0.0);
+    }
+
+    @Test
+    @DisplayName("Seuls les ajouts et retraits effectifs sont journalisés")
+    void logsOnlyEffectiveSetChanges() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TraceRecorder recorder = new TraceRecorder(bytes);
+        SimSet set = new SimSet();
+        set.setTrace(recorder, TraceRecorder.MALES);
+        Sim a = new Sim(Sim.Sex.M), b = new Sim(Sim.Sex.M);
+        assertTrue(set.add(a));
+        assertFalse(set.add(a));
+        assertFalse(set.remove(b));
+        assertTrue(set.remove(a));
+        recorder.close();
+
+        TraceReplay.Trace trace = TraceReplay.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(2, trace.operations());
+        assertEquals(1, trace.count("set.add"));
+        assertEquals(1, trace.count("set.remove"));
+    }
+
+    @Test
+    @DisplayName("Trace invalide refusée")
+    void rejectsGarbage() {
+        assertThrows(IOException.class, () -> TraceReplay.read(new ByteArrayInputStream(new byte[16])));
+        assertThrows(IllegalArgumentException.class, () -> TraceReplay.queue("fibonacci"));
+    }
+}
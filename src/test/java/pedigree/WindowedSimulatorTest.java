@@ -0,0 +1,100 @@
+package pedigree;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the windowed parallel engine with the sequential event loop on
+ * the same seeded founders: population trajectories must agree, and a
+ * windowed run is reproducible for a given seed, whatever the thread count.
+ */
+@Timeout(60)
+public class WindowedSimulatorTest {
+
+    private static final int FOUNDERS = 5000;
+    private static final double HORIZON = 200.0;
+
+    private static Simulator seeded(long seed) {
+        Simulator sim = new Simulator(seed, HORIZON);
+        sim.addFounders(FOUNDERS);
+        return sim;
+    }
+
+    private static double sequential(long seed) {
+        Simulator sim = seeded(seed);
+        sim.run(HORIZON);
+        return sim.getPopulation();
+    }
+
+    private static Simulator windowed(long seed) throws InterruptedException {
+        return windowed(seed, 4);
+    }
+
+    private static Simulator windowed(long seed, int threads) throws InterruptedException {
+        Simulator sim = seeded(seed);
+        new WindowedSimulator(sim, threads, seed).run(HORIZON);
+        return sim;
+    }
+
+    @Test
+    @DisplayName("Fenêtres parallèles ≈ boucle séquentielle")
+    void windowedMatchesSequential() throws InterruptedException {
+        double seq = 0.0, par = 0.0;
+        for (long seed = 1; seed <= 3; seed++) {
+            seq += sequential(seed);
+
+            Simulator sim = windowed(seed);
+            assertEquals(HORIZON, sim.getTime());
+            sim.recordSample();
+            List<Simulator.PointPop> samples = sim.getPopSamples();
+            assertEquals(3, samples.size(), "jalons 0, 100, 200");
+            par += sim.getPopulation();
+        }
+        // fondateurs et fenêtres déterminés par la graine : écart fixe, 1,2 % ici
+        assertTrue(Math.abs(par - seq) < 0.05 * seq,
+                "populations finales : séquentiel " + seq + ", parallèle " + par);
+    }
+
+    @Test
+    @DisplayName("Même graine, même trajectoire, quel que soit l'ordonnancement des threads")
+    void windowedIsReproducible() throws InterruptedException {
+        Simulator a = windowed(2L), b = windowed(2L);
+        assertEquals(a.getPopulation(), b.getPopulation());
+        assertEquals(a.getBirths(), b.getBirths());
+        assertEquals(a.getPopSamples(), b.getPopSamples());
+    }
+
+    @Test
+    @DisplayName("Même trajectoire avec 1, 3 ou 8 threads")
+    void windowedIsIndependentOfThreadCount() throws InterruptedException {
+        Simulator one = windowed(5L, 1);
+        for (int threads : new int[] {3, 8}) {
+            Simulator many = windowed(5L, threads);
+            assertEquals(one.getBirths(), many.getBirths(), threads + " threads");
+            assertEquals(one.getPopulation(), many.getPopulation());
+            assertEquals(one.getPopSamples(), many.getPopSamples());
+            assertEquals(Coalescence.maternal(one, HORIZON), Coalescence.maternal(many, HORIZON));
+        }
+    }
+
+    @Test
+    @DisplayName("Les événements en attente reviennent au simulateur, qui peut continuer seul")
+    void pendingEventsReturnToSimulator() throws InterruptedException {
+        for (boolean lazy : new boolean[] {false, true}) {
+            Simulator sim = new Simulator(4L, HORIZON, lazy);
+            sim.addFounders(2000);
+            new WindowedSimulator(sim, 2, 4L).run(HORIZON / 2);
+            assertTrue(sim.hasEvents());
+            int population = sim.getPopulation();
+            assertEquals(Simulator.StopReason.HORIZON, sim.run(HORIZON), "lazy=" + lazy);
+            assertTrue(sim.getPopulation() > population / 2, "lazy=" + lazy);
+            sim.recordSample();
+            assertEquals(3, sim.getPopSamples().size(), "jalons 0, 100, 200");
+        }
+    }
+}